@@ -0,0 +1,10 @@
+package com.KafkaOrderProcessingSystem.OrderProcessingSystem.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+// Caches are defined in application.yaml (spring.cache.*), Caffeine backed with a bounded size
+@Configuration
+@EnableCaching
+public class CacheConfig {
+}
@@ -0,0 +1,32 @@
+package com.KafkaOrderProcessingSystem.OrderProcessingSystem.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "app.inventory")
+public class InventoryProperties {
+
+    private BulkImport bulkImport = new BulkImport();
+
+    private Export export = new Export();
+
+    @Data
+    public static class BulkImport {
+
+        // Valid rows collected before they are written in one unordered bulk insert
+        private int chunkSize = 1000;
+
+        // Rejected rows listed in the response, further rejections are only counted
+        private int maxReportedErrors = 1000;
+    }
+
+    @Data
+    public static class Export {
+
+        // Async timeout of GET /inventory/export only, a full catalog export runs far longer than a normal request
+        private Duration timeout = Duration.ofMinutes(30);
+    }
+}
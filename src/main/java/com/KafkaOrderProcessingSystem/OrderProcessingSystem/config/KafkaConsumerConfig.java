@@ -0,0 +1,132 @@
+package com.KafkaOrderProcessingSystem.OrderProcessingSystem.config;
+
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity.Order;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils.OrderKeyStrategy;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils.OrderLaneDispatcher;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils.OrderPublisher;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils.WarehouseStockLedger;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.retrytopic.RetryTopicConfiguration;
+import org.springframework.kafka.retrytopic.RetryTopicConfigurationBuilder;
+
+import java.util.Properties;
+
+@Configuration
+public class KafkaConsumerConfig {
+
+    // Orders that failed every retry end up here, until they are replayed to the orders topic
+    public static final String ORDERS_DLT_TOPIC = OrderPublisher.TOPIC + "-dlt";
+
+    private static final long PARALLEL_IDLE_INTERVAL_MS = 100;
+
+    // Non-blocking retries for the single record listener: a failing order is republished to orders-retry-0,
+    // orders-retry-1, ... with exponential backoff and finally to orders-dlt, so it no longer holds up the
+    // orders behind it on its partition
+    @Bean
+    @ConditionalOnProperty(prefix = "app.kafka.consumer", name = "mode", havingValue = "single", matchIfMissing = true)
+    public RetryTopicConfiguration ordersRetryTopicConfiguration(KafkaTemplate<String, Order> kafkaTemplate,
+                                                                 KafkaConsumerProperties consumerProperties,
+                                                                 KafkaTopicProperties topicProperties) {
+        KafkaConsumerProperties.Retry retry = consumerProperties.getRetry();
+        KafkaTopicProperties.Topic orders = topicProperties.getOrders();
+        return RetryTopicConfigurationBuilder.newInstance()
+                .maxAttempts(retry.getAttempts())
+                .exponentialBackoff(retry.getInitialDelay().toMillis(), retry.getMultiplier(),
+                        retry.getMaxDelay().toMillis())
+                .suffixTopicsWithIndexValues()
+                .dltSuffix("-dlt")
+                // Same layout as the orders topic, so a product keeps its partition through the retries
+                .autoCreateTopicsWith(orders.getPartitions(), orders.getReplicationFactor())
+                .includeTopic(OrderPublisher.TOPIC)
+                .dltHandlerMethod("warehouseConsumerServiceImpl", "handleDeadLetter")
+                .create(kafkaTemplate);
+    }
+
+    // Container factory for the batch listener, built on top of the spring.kafka.* settings
+    @Bean
+    @ConditionalOnProperty(prefix = "app.kafka.consumer", name = "mode", havingValue = "batch")
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> batchKafkaListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> kafkaConsumerFactory,
+            KafkaConsumerProperties consumerProperties) {
+
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, kafkaConsumerFactory);
+        factory.setBatchListener(true);
+
+        // Batch size and max wait only apply to this factory, the single record listener keeps the defaults
+        KafkaConsumerProperties.Batch batch = consumerProperties.getBatch();
+        Properties overrides = new Properties();
+        overrides.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(batch.getMaxRecords()));
+        overrides.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, String.valueOf(batch.getMaxWait().toMillis()));
+        overrides.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, String.valueOf(batch.getMinBytes()));
+        factory.getContainerProperties().setKafkaConsumerProperties(overrides);
+        return factory;
+    }
+
+    // Container factory for the ledger listener: offsets are committed by the ledger itself after each flush
+    @Bean
+    @ConditionalOnProperty(prefix = "app.kafka.consumer", name = "mode", havingValue = "ledger")
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> ledgerKafkaListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> kafkaConsumerFactory,
+            KafkaConsumerProperties consumerProperties,
+            KafkaProducerProperties producerProperties,
+            WarehouseStockLedger warehouseStockLedger) {
+
+        // The ledger relies on one partition, and so one consumer thread, per product
+        if (producerProperties.getKeyStrategy() != OrderKeyStrategy.PRODUCT_NAME) {
+            throw new IllegalStateException("The ledger consumer mode needs app.kafka.producer.key-strategy=product-name, "
+                    + "got " + producerProperties.getKeyStrategy());
+        }
+
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, kafkaConsumerFactory);
+
+        ContainerProperties containerProperties = factory.getContainerProperties();
+        // MANUAL without acknowledging means the container never commits on its own
+        containerProperties.setAckMode(ContainerProperties.AckMode.MANUAL);
+        containerProperties.setConsumerRebalanceListener(warehouseStockLedger);
+        // Idle events let quiet partitions flush on time as well
+        containerProperties.setIdleEventInterval(consumerProperties.getLedger().getFlushInterval().toMillis());
+        return factory;
+    }
+
+    // Container factory for the parallel listener: the poll thread only dispatches whole polls to the lanes,
+    // offsets are committed by the dispatcher up to the last record finished without gaps
+    @Bean
+    @ConditionalOnProperty(prefix = "app.kafka.consumer", name = "mode", havingValue = "parallel")
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> parallelKafkaListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> kafkaConsumerFactory,
+            OrderLaneDispatcher orderLaneDispatcher) {
+
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, kafkaConsumerFactory);
+        factory.setBatchListener(true);
+
+        ContainerProperties containerProperties = factory.getContainerProperties();
+        // MANUAL without acknowledging means the container never commits on its own
+        containerProperties.setAckMode(ContainerProperties.AckMode.MANUAL);
+        containerProperties.setConsumerRebalanceListener(orderLaneDispatcher);
+        // A paused consumer receives no records, idle events let it commit and resume once the lanes caught up
+        containerProperties.setIdleEventInterval(PARALLEL_IDLE_INTERVAL_MS);
+        return factory;
+    }
+
+    // Orders that fail on a lane are moved to orders-dlt, on the same partition number
+    @Bean
+    @ConditionalOnProperty(prefix = "app.kafka.consumer", name = "mode", havingValue = "parallel")
+    public DeadLetterPublishingRecoverer ordersDeadLetterRecoverer(KafkaTemplate<String, Order> kafkaTemplate) {
+        return new DeadLetterPublishingRecoverer(kafkaTemplate);
+    }
+}
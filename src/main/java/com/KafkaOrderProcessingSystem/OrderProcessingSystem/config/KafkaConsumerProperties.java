@@ -0,0 +1,74 @@
+package com.KafkaOrderProcessingSystem.OrderProcessingSystem.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "app.kafka.consumer")
+public class KafkaConsumerProperties {
+
+    // Which listener consumes the orders topic: single (one record per call), batch (one poll per call),
+    // ledger (in-memory stock per partition, flushed periodically) or parallel (per product lanes behind the poll thread)
+    private String mode = "single";
+
+    private Batch batch = new Batch();
+
+    private Ledger ledger = new Ledger();
+
+    private Retry retry = new Retry();
+
+    private Parallel parallel = new Parallel();
+
+    @Data
+    public static class Batch {
+
+        // Maximum number of records handed to the batch listener per poll (max.poll.records)
+        private int maxRecords = 500;
+
+        // Longest time the broker waits to fill a fetch before answering (fetch.max.wait.ms)
+        private Duration maxWait = Duration.ofMillis(500);
+
+        // Amount of data the broker tries to accumulate before answering a fetch (fetch.min.bytes)
+        private int minBytes = 65536;
+    }
+
+    @Data
+    public static class Ledger {
+
+        // How often the in-memory stock changes are written to Mongo and the matching offsets committed
+        private Duration flushInterval = Duration.ofSeconds(1);
+    }
+
+    @Data
+    public static class Retry {
+
+        // Deliveries of a failing order in total: the first one on orders, the rest on orders-retry-N topics,
+        // after the last one the order goes to orders-dlt
+        private int attempts = 4;
+
+        // Wait before the first retry, each following retry waits multiplier times longer up to maxDelay
+        private Duration initialDelay = Duration.ofSeconds(1);
+
+        private double multiplier = 2.0;
+
+        private Duration maxDelay = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class Parallel {
+
+        // Worker threads behind the poll thread, orders of one product always run on the same lane
+        private int lanes = 8;
+
+        // Records handed to the lanes and not finished yet, above this the consumer pauses fetching
+        private int maxInFlight = 10_000;
+
+        // How often the offsets of the finished records are committed
+        private Duration commitInterval = Duration.ofSeconds(1);
+
+        // Longest wait for the lanes to finish their records on a rebalance or shutdown
+        private Duration drainTimeout = Duration.ofSeconds(30);
+    }
+}
@@ -0,0 +1,20 @@
+package com.KafkaOrderProcessingSystem.OrderProcessingSystem.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.kafka.DefaultKafkaProducerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Slf4j
+@Configuration
+public class KafkaProducerConfig {
+
+    // Applies the selected tuning profile on top of spring.kafka.producer, so the auto-configured producer factory
+    // (and the KafkaTemplate built from it) no longer runs on client defaults
+    @Bean
+    public DefaultKafkaProducerFactoryCustomizer producerProfileCustomizer(KafkaProducerProperties producerProperties) {
+        KafkaProducerProperties.Tuning tuning = producerProperties.getActiveProfile();
+        log.info("Kafka producer profile {}: {}", producerProperties.getProfile(), tuning);
+        return producerFactory -> producerFactory.updateConfigs(tuning.toProducerConfigs());
+    }
+}
@@ -0,0 +1,77 @@
+package com.KafkaOrderProcessingSystem.OrderProcessingSystem.config;
+
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils.OrderKeyStrategy;
+import lombok.Data;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "app.kafka.producer")
+public class KafkaProducerProperties {
+
+    // Record key used when publishing orders, see OrderKeyStrategy
+    private OrderKeyStrategy keyStrategy = OrderKeyStrategy.ORDER_ID;
+
+    // Name of the entry of profiles applied to the producer factory
+    private String profile = "low-latency";
+
+    // Producer tuning profiles, defined in application.yaml
+    private Map<String, Tuning> profiles = new LinkedHashMap<>();
+
+    private PublishWindow publishWindow = new PublishWindow();
+
+    public Tuning getActiveProfile() {
+        Tuning tuning = profiles.get(profile);
+        if (tuning == null) {
+            throw new IllegalStateException("Unknown producer profile: " + profile + ", expected one of " + profiles.keySet());
+        }
+        return tuning;
+    }
+
+    @Data
+    public static class Tuning {
+
+        private boolean idempotence = true;
+
+        private String acks = "all";
+
+        private Duration linger = Duration.ZERO;
+
+        private DataSize batchSize = DataSize.ofKilobytes(16);
+
+        private String compressionType = "none";
+
+        // At most 5 with idempotence, the broker keeps the order of up to 5 in-flight batches per partition
+        private int maxInFlightRequests = 5;
+
+        public Map<String, Object> toProducerConfigs() {
+            Map<String, Object> configs = new HashMap<>();
+            configs.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, idempotence);
+            configs.put(ProducerConfig.ACKS_CONFIG, acks);
+            configs.put(ProducerConfig.LINGER_MS_CONFIG, (int) linger.toMillis());
+            configs.put(ProducerConfig.BATCH_SIZE_CONFIG, (int) batchSize.toBytes());
+            configs.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+            configs.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, maxInFlightRequests);
+            return configs;
+        }
+    }
+
+    @Data
+    public static class PublishWindow {
+
+        // Sends handed to the producer and not yet acknowledged, further publishes wait for a free slot
+        private int maxInFlight = 1000;
+
+        // How long a publish waits for a slot before the order is rejected
+        private Duration acquireTimeout = Duration.ofSeconds(5);
+
+        // Threads running the acknowledgement callbacks, which may write to Mongo, off the producer I/O thread
+        private int callbackThreads = 4;
+    }
+}
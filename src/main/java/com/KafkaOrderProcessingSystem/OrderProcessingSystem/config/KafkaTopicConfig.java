@@ -0,0 +1,33 @@
+package com.KafkaOrderProcessingSystem.OrderProcessingSystem.config;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+
+@Configuration
+public class KafkaTopicConfig {
+
+    // Declares the orders topic so KafkaAdmin creates it (or adds partitions) at startup instead of relying on broker auto-create
+    @Bean
+    public NewTopic ordersTopic(KafkaTopicProperties topicProperties) {
+        KafkaTopicProperties.Topic orders = topicProperties.getOrders();
+        return TopicBuilder.name("orders")
+                .partitions(orders.getPartitions())
+                .replicas(orders.getReplicationFactor())
+                .build();
+    }
+
+    // The parallel consumer publishes failed orders to orders-dlt itself, in single mode the retry topic
+    // configuration creates it
+    @Bean
+    @ConditionalOnProperty(prefix = "app.kafka.consumer", name = "mode", havingValue = "parallel")
+    public NewTopic ordersDltTopic(KafkaTopicProperties topicProperties) {
+        KafkaTopicProperties.Topic orders = topicProperties.getOrders();
+        return TopicBuilder.name(KafkaConsumerConfig.ORDERS_DLT_TOPIC)
+                .partitions(orders.getPartitions())
+                .replicas(orders.getReplicationFactor())
+                .build();
+    }
+}
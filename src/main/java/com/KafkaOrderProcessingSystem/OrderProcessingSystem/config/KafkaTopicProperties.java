@@ -0,0 +1,20 @@
+package com.KafkaOrderProcessingSystem.OrderProcessingSystem.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "app.kafka.topics")
+public class KafkaTopicProperties {
+
+    private Topic orders = new Topic();
+
+    @Data
+    public static class Topic {
+
+        // Upper bound for consumer parallelism: one listener thread per partition at most
+        private int partitions = 3;
+
+        private short replicationFactor = 1;
+    }
+}
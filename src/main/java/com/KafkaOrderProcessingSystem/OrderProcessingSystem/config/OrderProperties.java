@@ -0,0 +1,65 @@
+package com.KafkaOrderProcessingSystem.OrderProcessingSystem.config;
+
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils.OrderIdMode;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "app.orders")
+public class OrderProperties {
+
+    private StockReservation stockReservation = new StockReservation();
+
+    private Idempotency idempotency = new Idempotency();
+
+    private Outbox outbox = new Outbox();
+
+    private IdGeneration idGeneration = new IdGeneration();
+
+    @Data
+    public static class StockReservation {
+
+        // Admit orders against in-memory per-product counters instead of reading warehouse_stock for every order.
+        // Counters are owned by this instance, so only enable it when a single instance admits orders.
+        private boolean enabled = false;
+    }
+
+    @Data
+    public static class Idempotency {
+
+        // Sizing of the Bloom filter of accepted order ids, past this many ids the false positive rate grows
+        // and more lookups fall through to Mongo
+        private long expectedInsertions = 1_000_000;
+
+        private double falsePositiveRate = 0.01;
+
+        // Recently accepted orders kept in memory, so most retries are answered without Mongo
+        private int recentCacheSize = 10_000;
+    }
+
+    @Data
+    public static class Outbox {
+
+        // Accepted orders are only marked in Mongo and a background relay publishes them,
+        // instead of sending to Kafka on the request thread
+        private boolean enabled = false;
+
+        // Orders read from the outbox and sent together per relay run
+        private int batchSize = 500;
+
+        // Pause between relay runs when the outbox was drained
+        private Duration pollInterval = Duration.ofMillis(500);
+    }
+
+    @Data
+    public static class IdGeneration {
+
+        // Whether orders keep the client order id or get a time ordered one from OrderIdGenerator, see OrderIdMode
+        private OrderIdMode mode = OrderIdMode.CLIENT;
+
+        // 0..1023, distinct per instance that accepts orders. Negative derives one from the host name.
+        private int nodeId = -1;
+    }
+}
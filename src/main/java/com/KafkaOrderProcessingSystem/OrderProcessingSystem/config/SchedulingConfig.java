@@ -0,0 +1,12 @@
+package com.KafkaOrderProcessingSystem.OrderProcessingSystem.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Runs @Scheduled background jobs such as the order outbox relay, and @Async startup work such as the index creation
+@Configuration
+@EnableAsync
+@EnableScheduling
+public class SchedulingConfig {
+}
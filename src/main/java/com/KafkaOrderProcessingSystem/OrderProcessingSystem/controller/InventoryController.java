@@ -1,19 +1,30 @@
 package com.KafkaOrderProcessingSystem.OrderProcessingSystem.controller;
 
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.config.InventoryProperties;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.dto.BatchStockAdjustmentRequestDTO;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.dto.InventoryImportDTO;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.dto.StockLookupRequestDTO;
 import com.KafkaOrderProcessingSystem.OrderProcessingSystem.dto.WarehouseStockDTO;
 import com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity.WarehouseStock;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.service.InventoryImportService;
 import com.KafkaOrderProcessingSystem.OrderProcessingSystem.service.InventoryService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 @Tag(name = "Inventory Management", description = "APIs for managing warehouse stock and inventory operations")
@@ -25,6 +36,10 @@ public class InventoryController {
 
     private final InventoryService inventoryService;
 
+    private final InventoryImportService inventoryImportService;
+
+    private final InventoryProperties inventoryProperties;
+
     @Operation(
             summary = "Add new stock to inventory",
             description = "Creates a new product entry in the warehouse. Product name must be unique."
@@ -50,18 +65,58 @@ public class InventoryController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
+    @Operation(
+            summary = "Bulk import new stock",
+            description = "Streams a CSV (productName,availableQuantity) or NDJSON (one stock JSON per line) body. "
+                    + "Rows are validated like add_stock and inserted in unordered bulk writes, rejected rows such as "
+                    + "existing product names are reported with their line number"
+    )
+    @PostMapping(value = "/import", consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<InventoryImportDTO> importInventory(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                              InputStream body) throws IOException {
+        InventoryImportService.Format format = MediaType.APPLICATION_NDJSON.isCompatibleWith(MediaType.parseMediaType(contentType))
+                ? InventoryImportService.Format.NDJSON
+                : InventoryImportService.Format.CSV;
+
+        // The body is read as it arrives, the file is never held in memory
+        return ResponseEntity.ok(inventoryImportService.importInventory(body, format));
+    }
+
     @Operation(
             summary = "Get all inventory items",
-            description = "Retrieves a complete list of all products in the warehouse inventory"
+            description = "Retrieves a complete list of all products in the warehouse inventory. "
+                    + "With a cursor parameter (empty for the first page) the list is paged by keyset instead: "
+                    + "no total count, and every page costs the same however deep it is"
     )
     @GetMapping("/stock_list")
     public ResponseEntity<?> getInventory(@RequestParam(defaultValue = "0") int page,
                                           @RequestParam(defaultValue = "10") int size,
-                                          @RequestParam(defaultValue = "productName") String sortBy){
+                                          @RequestParam(defaultValue = "productName") String sortBy,
+                                          @Parameter(description = "nextCursor of the previous page, empty to start")
+                                          @RequestParam(required = false) String cursor){
+        if (cursor != null) {
+            return ResponseEntity.ok(inventoryService.getInventoryAfter(cursor, size, sortBy));
+        }
         // Fetch and return the list of warehouse stocks from the inventory service.
         return ResponseEntity.ok(inventoryService.getInventory(page, size, sortBy));
     }
 
+    @Operation(
+            summary = "Export the whole inventory",
+            description = "Streams every product as newline delimited JSON, one document per line, in product name order"
+    )
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public WebAsyncTask<Void> exportInventory(HttpServletResponse response) {
+        // Written on an async thread straight from the Mongo cursor, the request thread is released right away.
+        // The task carries its own timeout, so only the export waits that long.
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        return new WebAsyncTask<>(inventoryProperties.getExport().getTimeout().toMillis(), () -> {
+            inventoryService.exportInventory(response.getOutputStream());
+            response.flushBuffer();
+            return null;
+        });
+    }
+
     @Operation(
             summary = "Update existing stock",
             description = "Updates product name and/or quantity for an existing inventory item"
@@ -85,4 +140,31 @@ public class InventoryController {
         // Return 200 OK with updated stock details
         return ResponseEntity.ok(response);
     }
+
+    @Operation(
+            summary = "Adjust the stock of many products",
+            description = "Applies up to 10000 signed quantity changes as atomic increments, a decrement larger than "
+                    + "the available stock is refused. A result with the resulting quantity is returned for every "
+                    + "adjustment, in request order."
+    )
+    @PutMapping("/update_stock")
+    public ResponseEntity<List<WarehouseStockDTO>> adjustInventory(
+            @Valid @RequestBody BatchStockAdjustmentRequestDTO batchStockAdjustmentRequestDTO) {
+
+        // Return 200 OK with a per-product result, some products of the batch may not exist
+        return ResponseEntity.ok(inventoryService.adjustInventory(batchStockAdjustmentRequestDTO.getAdjustments()));
+    }
+
+    @Operation(
+            summary = "Look up the stock of many products",
+            description = "Returns the available quantity of up to 1000 products, in request order. Cached products are "
+                    + "answered from memory, the others are read from Mongo in a single query."
+    )
+    @PostMapping("/lookup")
+    public ResponseEntity<List<WarehouseStockDTO>> lookupInventory(
+            @Valid @RequestBody StockLookupRequestDTO stockLookupRequestDTO) {
+
+        // Return 200 OK with a result per product, unknown products carry a not found message
+        return ResponseEntity.ok(inventoryService.lookupInventory(stockLookupRequestDTO.getProductNames()));
+    }
 }
@@ -1,9 +1,14 @@
 package com.KafkaOrderProcessingSystem.OrderProcessingSystem.controller;
 
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.dto.BatchOrderRequestDTO;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.dto.DeadLetterReplayDTO;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.dto.OrderCursorPageDTO;
 import com.KafkaOrderProcessingSystem.OrderProcessingSystem.dto.OrderRequestDTO;
 import com.KafkaOrderProcessingSystem.OrderProcessingSystem.dto.OrderResponseDTO;
 import com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity.Order;
 import com.KafkaOrderProcessingSystem.OrderProcessingSystem.repository.OrderRepository;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.service.DeadLetterReplayService;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.service.OrderQueryService;
 import com.KafkaOrderProcessingSystem.OrderProcessingSystem.service.Impl.OrderProducerServiceImpl;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -15,6 +20,9 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 
 @Tag(name = "Order Management", description = "APIs for managing and processing orders")
 @RestController
@@ -26,6 +34,10 @@ public class OrderController {
 
     private final OrderProducerServiceImpl orderProducerService;
 
+    private final DeadLetterReplayService deadLetterReplayService;
+
+    private final OrderQueryService orderQueryService;
+
     @Operation(
             summary = "Create a new order",
             description = "Creates and submits a new order to the processing queue. The order will be validated and sent to Kafka for asynchronous processing."
@@ -58,4 +70,80 @@ public class OrderController {
         // Return 201 CREATED to indicate resource was successfully created
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
+
+    @Operation(
+            summary = "Create a new order asynchronously",
+            description = "Validates and saves the order, then returns 202 Accepted as soon as Kafka acknowledges it. The request thread is released while the send is in flight and the order is not read back from the database."
+    )
+    @PostMapping("/create_order_async")
+    public CompletableFuture<ResponseEntity<OrderResponseDTO>> createOrderAsync(@Valid @RequestBody OrderRequestDTO orderRequestDTO) {
+
+        // Map DTO to entity using builder pattern (more readable than constructor)
+        Order order = Order.builder()
+                .orderId(orderRequestDTO.getOrderId())
+                .productName(orderRequestDTO.getProductName())
+                .quantity(orderRequestDTO.getQuantity())
+                .status(orderRequestDTO.getStatus())
+                .build();
+
+        // Build the response from the accepted order itself instead of reading it back
+        return orderProducerService.submitOrderAsync(order)
+                .thenApply(accepted -> ResponseEntity.status(HttpStatus.ACCEPTED).body(OrderResponseDTO.builder()
+                        .orderId(accepted.getOrderId())
+                        .productName(accepted.getProductName())
+                        .quantity(accepted.getQuantity())
+                        .status(accepted.getStatus())
+                        .message("Order accepted and queued for processing")
+                        .build()));
+    }
+
+    @Operation(
+            summary = "Create a batch of orders",
+            description = "Validates and submits up to 1000 orders in one request. Stock is looked up once for the whole batch, orders are bulk inserted and all Kafka sends are pipelined. A result is returned for every order, in request order."
+    )
+    @PostMapping("/batch")
+    public ResponseEntity<List<OrderResponseDTO>> createOrders(@Valid @RequestBody BatchOrderRequestDTO batchOrderRequestDTO) {
+
+        // Map every DTO to an entity using the same builder mapping as the single order endpoint
+        List<Order> orders = batchOrderRequestDTO.getOrders().stream()
+                .map(orderRequestDTO -> Order.builder()
+                        .orderId(orderRequestDTO.getOrderId())
+                        .productName(orderRequestDTO.getProductName())
+                        .quantity(orderRequestDTO.getQuantity())
+                        .status(orderRequestDTO.getStatus())
+                        .build())
+                .toList();
+
+        // Return 200 OK with a per-order result, some orders of the batch may have been rejected
+        return ResponseEntity.ok(orderProducerService.submitOrders(orders));
+    }
+
+    @Operation(
+            summary = "Replay dead letter orders",
+            description = "Sends up to maxRecords orders that failed every retry from orders-dlt back to the orders topic, e.g. once the missing product was added. Only orders already in orders-dlt when the call starts are replayed."
+    )
+    @PostMapping("/dlt/replay")
+    public ResponseEntity<DeadLetterReplayDTO> replayDeadLetters(@RequestParam(defaultValue = "1000") int maxRecords) {
+
+        int replayed = deadLetterReplayService.replay(maxRecords);
+
+        return ResponseEntity.ok(DeadLetterReplayDTO.builder()
+                .replayed(replayed)
+                .message(replayed + " dead letter orders sent back for processing")
+                .build());
+    }
+
+    @Operation(
+            summary = "List orders",
+            description = "Lists orders in order id order, optionally filtered by status and product name, e.g. to find FAILED orders. "
+                    + "Paged by cursor: pass nextCursor of the previous page to continue, no total count is computed."
+    )
+    @GetMapping
+    public ResponseEntity<OrderCursorPageDTO> getOrders(@RequestParam(required = false) String status,
+                                                        @RequestParam(required = false) String productName,
+                                                        @RequestParam(required = false) String cursor,
+                                                        @RequestParam(defaultValue = "50") int size) {
+
+        return ResponseEntity.ok(orderQueryService.findOrders(status, productName, cursor, size));
+    }
 }
@@ -0,0 +1,22 @@
+package com.KafkaOrderProcessingSystem.OrderProcessingSystem.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchOrderRequestDTO {
+
+    @NotEmpty(message = "orders required")
+    @Size(max = 1000, message = "A batch can contain at most 1000 orders")
+    private List<@Valid OrderRequestDTO> orders;
+}
@@ -0,0 +1,22 @@
+package com.KafkaOrderProcessingSystem.OrderProcessingSystem.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchStockAdjustmentRequestDTO {
+
+    @NotEmpty(message = "adjustments required")
+    @Size(max = 10000, message = "A batch can contain at most 10000 adjustments")
+    private List<@Valid StockAdjustmentDTO> adjustments;
+}
@@ -0,0 +1,16 @@
+package com.KafkaOrderProcessingSystem.OrderProcessingSystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class DeadLetterReplayDTO {
+
+    private int replayed;
+    private String message;
+}
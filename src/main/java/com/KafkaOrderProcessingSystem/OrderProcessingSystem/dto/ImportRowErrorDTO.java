@@ -0,0 +1,18 @@
+package com.KafkaOrderProcessingSystem.OrderProcessingSystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ImportRowErrorDTO {
+
+    // Line of the uploaded file, starting at 1
+    private long line;
+    private String productName;
+    private String message;
+}
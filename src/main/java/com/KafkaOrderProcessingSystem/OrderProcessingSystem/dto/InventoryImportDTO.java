@@ -0,0 +1,22 @@
+package com.KafkaOrderProcessingSystem.OrderProcessingSystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class InventoryImportDTO {
+
+    private long imported;
+    private long rejected;
+
+    // The first rejected rows, capped by app.inventory.bulk-import.max-reported-errors
+    private List<ImportRowErrorDTO> errors;
+    private String message;
+}
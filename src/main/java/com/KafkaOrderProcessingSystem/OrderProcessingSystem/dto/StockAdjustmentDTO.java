@@ -0,0 +1,20 @@
+package com.KafkaOrderProcessingSystem.OrderProcessingSystem.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class StockAdjustmentDTO {
+
+    @NotBlank(message = "product  name required")
+    private String productName;
+
+    // Signed change of the available quantity, negative for corrections
+    private int delta;
+}
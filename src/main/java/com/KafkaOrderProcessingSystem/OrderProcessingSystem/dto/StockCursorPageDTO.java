@@ -0,0 +1,23 @@
+package com.KafkaOrderProcessingSystem.OrderProcessingSystem.dto;
+
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity.WarehouseStock;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class StockCursorPageDTO {
+
+    private List<WarehouseStock> content;
+
+    private int size;
+
+    // Pass back as the cursor parameter for the following page, null on the last page
+    private String nextCursor;
+}
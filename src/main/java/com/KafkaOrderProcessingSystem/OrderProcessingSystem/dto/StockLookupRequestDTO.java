@@ -0,0 +1,22 @@
+package com.KafkaOrderProcessingSystem.OrderProcessingSystem.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class StockLookupRequestDTO {
+
+    @NotEmpty(message = "productNames required")
+    @Size(max = 1000, message = "A lookup can contain at most 1000 products")
+    private List<@NotBlank(message = "product  name required") String> productNames;
+}
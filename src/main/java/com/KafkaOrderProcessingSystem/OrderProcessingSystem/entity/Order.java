@@ -1,5 +1,6 @@
 package com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
@@ -9,13 +10,24 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.NonNull;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.time.Instant;
+
 @Data
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
 @Document(collection = "orders")
+// Serve the GET /orders filters: equality on the filtered fields, then _id for the cursor seek and the sort
+@CompoundIndexes({
+        @CompoundIndex(name = "status_id", def = "{'status': 1, '_id': 1}"),
+        @CompoundIndex(name = "productName_id", def = "{'productName': 1, '_id': 1}"),
+        @CompoundIndex(name = "productName_status_id", def = "{'productName': 1, 'status': 1, '_id': 1}")
+})
 public class Order {
 
     @Id
@@ -24,4 +36,16 @@ public class Order {
     private int quantity;
     private String status;
 
+    // Set while the order still has to be relayed to Kafka (outbox mode), written in the same document as the order
+    // so accepting an order is a single atomic write. Sparse, so the index only holds orders waiting for the relay.
+    @JsonIgnore
+    @Indexed(sparse = true)
+    private Instant outboxCreatedAt;
+
+    public Order(String orderId, String productName, int quantity, String status) {
+        this.orderId = orderId;
+        this.productName = productName;
+        this.quantity = quantity;
+        this.status = status;
+    }
 }
@@ -1,6 +1,7 @@
 package com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity;
 
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
@@ -9,16 +10,31 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.util.Map;
+
 @Data
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
 @Document(collection = "warehouse_stock")
+// Serves the keyset pages of the stock list sorted by quantity, product name (the _id) breaks ties
+@CompoundIndex(name = "availableQuantity_productName", def = "{'availableQuantity': 1, '_id': 1}")
 public class WarehouseStock {
 
     @Id
     private String productName;
     private int availableQuantity;
+
+    // Last Kafka offset applied to this product, per "topic-partition", written in the same update as the stock
+    // so a replayed record can be recognised and skipped
+    @JsonIgnore
+    private Map<String, Long> appliedOffsets;
+
+    public WarehouseStock(String productName, int availableQuantity) {
+        this.productName = productName;
+        this.availableQuantity = availableQuantity;
+    }
 }
@@ -0,0 +1,16 @@
+package com.KafkaOrderProcessingSystem.OrderProcessingSystem.exception;
+
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity.Order;
+import lombok.Getter;
+
+// Raised when an order id turns out to be taken by an order that was already accepted
+@Getter
+public class DuplicateOrderException extends RuntimeException {
+
+    private final Order original;
+
+    public DuplicateOrderException(Order original) {
+        super("Duplicate order: " + original.getOrderId());
+        this.original = original;
+    }
+}
@@ -3,6 +3,6 @@ package com.KafkaOrderProcessingSystem.OrderProcessingSystem.repository;
 import com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity.Order;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
-public interface OrderRepository extends MongoRepository<Order, String> {
+public interface OrderRepository extends MongoRepository<Order, String>, OrderRepositoryCustom {
 
 }
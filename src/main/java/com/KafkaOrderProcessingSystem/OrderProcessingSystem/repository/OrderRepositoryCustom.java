@@ -0,0 +1,32 @@
+package com.KafkaOrderProcessingSystem.OrderProcessingSystem.repository;
+
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity.Order;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+// Custom fragment of OrderRepository for writes that rely on the unique _id and for the outbox
+public interface OrderRepositoryCustom {
+
+    // Inserts the orders in a single unordered bulk write, orders whose id is already taken are skipped.
+    // Returns the ids that were already present.
+    Set<String> insertAbsent(List<Order> orders);
+
+    // Orders with the given status and product (null matches any) in _id order, starting right after afterOrderId
+    // (from the beginning when it is null). Reads at most limit orders, without skip or count.
+    List<Order> findOrdersAfter(String status, String productName, String afterOrderId, int limit);
+
+    // Creates the compound indexes of the GET /orders filters if missing, independent of
+    // spring.data.mongodb.auto-index-creation
+    void ensureOrderListIndexes();
+
+    // Creates the sparse outboxCreatedAt index if missing, independent of spring.data.mongodb.auto-index-creation
+    void ensureOutboxIndex();
+
+    // Oldest orders still waiting in the outbox, at most limit of them
+    List<Order> findOutboxBatch(int limit);
+
+    // Removes the outbox marker of the given orders once Kafka acknowledged them, in one update
+    void clearOutbox(Collection<String> orderIds);
+}
@@ -0,0 +1,125 @@
+package com.KafkaOrderProcessingSystem.OrderProcessingSystem.repository;
+
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity.Order;
+import com.mongodb.bulk.BulkWriteError;
+import lombok.RequiredArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.schema.JsonSchemaObject;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@RequiredArgsConstructor
+public class OrderRepositoryCustomImpl implements OrderRepositoryCustom {
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    private static final String OUTBOX_CREATED_AT = "outboxCreatedAt";
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public Set<String> insertAbsent(List<Order> orders) {
+        Set<String> existingIds = new HashSet<>();
+        if (orders.isEmpty()) {
+            return existingIds;
+        }
+
+        // Unordered, so a taken id does not stop the remaining orders from being inserted
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class)
+                    .insert(orders)
+                    .execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                if (error.getCode() != DUPLICATE_KEY) {
+                    throw e;
+                }
+                existingIds.add(orders.get(error.getIndex()).getOrderId());
+            }
+        }
+        return existingIds;
+    }
+
+    @Override
+    public List<Order> findOrdersAfter(String status, String productName, String afterOrderId, int limit) {
+        Query query = new Query();
+        if (status != null) {
+            query.addCriteria(Criteria.where("status").is(status));
+        }
+        if (productName != null) {
+            query.addCriteria(Criteria.where("productName").is(productName));
+        }
+        if (afterOrderId != null) {
+            query.addCriteria(seekAfter(afterOrderId));
+        }
+        // Equality filters followed by the _id range match the compound indexes of Order, no in-memory sort
+        query.with(Sort.by("_id")).limit(limit);
+        return mongoTemplate.find(query, Order.class);
+    }
+
+    // _id holds strings, and ObjectIds for orders saved without an id (or with an ObjectId shaped one). In _id order all
+    // strings come before all ObjectIds, and $gt only matches values of its own type, so after a string the seek also
+    // takes every ObjectId
+    private static Criteria seekAfter(String afterOrderId) {
+        if (ObjectId.isValid(afterOrderId)) {
+            return Criteria.where("_id").gt(new ObjectId(afterOrderId));
+        }
+        return new Criteria().orOperator(
+                Criteria.where("_id").gt(afterOrderId),
+                Criteria.where("_id").type(JsonSchemaObject.Type.objectIdType()));
+    }
+
+    @Override
+    public void ensureOrderListIndexes() {
+        // Same names and keys as the @CompoundIndex declarations on Order, a no-op for the ones that already exist
+        IndexOperations indexOperations = mongoTemplate.indexOps(Order.class);
+        indexOperations.createIndex(new Index()
+                .on("status", Sort.Direction.ASC).on("_id", Sort.Direction.ASC)
+                .named("status_id"));
+        indexOperations.createIndex(new Index()
+                .on("productName", Sort.Direction.ASC).on("_id", Sort.Direction.ASC)
+                .named("productName_id"));
+        indexOperations.createIndex(new Index()
+                .on("productName", Sort.Direction.ASC).on("status", Sort.Direction.ASC).on("_id", Sort.Direction.ASC)
+                .named("productName_status_id"));
+    }
+
+    @Override
+    public void ensureOutboxIndex() {
+        // Same name and keys as the @Indexed declaration on Order, so it is a no-op when auto creation made it
+        mongoTemplate.indexOps(Order.class).createIndex(new Index()
+                .on(OUTBOX_CREATED_AT, Sort.Direction.ASC)
+                .named(OUTBOX_CREATED_AT)
+                .sparse());
+    }
+
+    @Override
+    public List<Order> findOutboxBatch(int limit) {
+        // Served by the sparse outboxCreatedAt index, which only holds the orders still to be relayed
+        Query query = Query.query(Criteria.where(OUTBOX_CREATED_AT).exists(true))
+                .with(Sort.by(OUTBOX_CREATED_AT))
+                .limit(limit);
+        return mongoTemplate.find(query, Order.class);
+    }
+
+    @Override
+    public void clearOutbox(Collection<String> orderIds) {
+        if (orderIds.isEmpty()) {
+            return;
+        }
+        mongoTemplate.updateMulti(Query.query(Criteria.where("_id").in(orderIds)),
+                new Update().unset(OUTBOX_CREATED_AT), Order.class);
+    }
+}
@@ -2,11 +2,50 @@ package com.KafkaOrderProcessingSystem.OrderProcessingSystem.repository;
 
 
 import com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity.WarehouseStock;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils.WarehouseStockCache;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.Optional;
+
 
 @Repository
-public interface WarehouseRepository extends MongoRepository<WarehouseStock, String> {
+public interface WarehouseRepository extends MongoRepository<WarehouseStock, String>, WarehouseRepositoryCustom {
+
+    // Read-through cache on the admission path, missing products are not cached
+    @Override
+    @Cacheable(cacheNames = WarehouseStockCache.CACHE_NAME, unless = "#result == null")
+    Optional<WarehouseStock> findById(String productName);
+
+    @Override
+    @CachePut(cacheNames = WarehouseStockCache.CACHE_NAME, key = "#p0.productName")
+    <S extends WarehouseStock> S save(S warehouseStock);
+
+    @Override
+    @CacheEvict(cacheNames = WarehouseStockCache.CACHE_NAME, allEntries = true)
+    <S extends WarehouseStock> List<S> saveAll(Iterable<S> warehouseStocks);
+
+    @Override
+    @CacheEvict(cacheNames = WarehouseStockCache.CACHE_NAME)
+    void deleteById(String productName);
+
+    @Override
+    @CacheEvict(cacheNames = WarehouseStockCache.CACHE_NAME, key = "#p0.productName")
+    void delete(WarehouseStock warehouseStock);
+
+    @Override
+    @CacheEvict(cacheNames = WarehouseStockCache.CACHE_NAME, allEntries = true)
+    void deleteAllById(Iterable<? extends String> productNames);
+
+    @Override
+    @CacheEvict(cacheNames = WarehouseStockCache.CACHE_NAME, allEntries = true)
+    void deleteAll(Iterable<? extends WarehouseStock> warehouseStocks);
 
+    @Override
+    @CacheEvict(cacheNames = WarehouseStockCache.CACHE_NAME, allEntries = true)
+    void deleteAll();
 }
@@ -0,0 +1,79 @@
+package com.KafkaOrderProcessingSystem.OrderProcessingSystem.repository;
+
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity.WarehouseStock;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils.StockCursor;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+// Custom fragment of WarehouseRepository for atomic stock updates that cannot be expressed as derived queries
+public interface WarehouseRepositoryCustom {
+
+    // Atomically decrements the available quantity only when enough stock remains.
+    // Returns the updated stock, or empty when the product is missing or has insufficient stock.
+    Optional<WarehouseStock> decrementStockIfAvailable(String productName, int quantity);
+
+    // Applies the quantities one after the other in a single atomic update, each only while enough stock remains
+    // for it, so an order that does not fit does not take the ones behind it down with it.
+    // Returns the stock as it was before the update, or empty when the product is missing.
+    Optional<WarehouseStock> decrementStockInOrder(String productName, List<Integer> quantities);
+
+    // Atomically adds a signed delta to the available quantity, a decrement only applies while the stock covers it.
+    // Returns the updated stock, or empty when the product is missing or the decrement was refused.
+    Optional<WarehouseStock> adjustStock(String productName, int delta);
+
+    // Decrements planned against one read of the stocks, in a single unordered bulk write. Each product is only
+    // decremented while it still has the quantity that was read (compare and set).
+    // Returns the products that were left alone because their stock changed since the read or they are gone.
+    Set<String> decrementStocksIfUnchanged(List<StockDecrement> decrements);
+
+    // Adds a signed delta to the available quantity of each product in one unordered bulk write. A decrement only
+    // applies while the stock covers it, so a quantity never goes negative.
+    // Returns the products whose decrement was refused, a missing product is not reported here.
+    Set<String> adjustStocks(Map<String, Integer> deltasByProduct);
+
+    // Offset aware decrement: only applies while the partition offset stored on the product is below the given one,
+    // and stores the offset in the same update. The stock is only decremented when enough remains, the offset is
+    // stored either way. Returns the stock as it was before the update, or empty when the product is missing or
+    // the offset was already applied.
+    Optional<WarehouseStock> decrementStockAtOffset(String productName, int quantity, String partition, long offset);
+
+    // Offset aware decrement planned against a read of the stock: only applies while the product still has the
+    // expected quantity and none of the partition offsets were applied since, then decrements the quantities and
+    // stores the last offset of every partition in the same update.
+    // Returns the stock as it was before the update, or empty when the product is missing or changed since the read.
+    Optional<WarehouseStock> decrementStockIfUnchanged(String productName, int expectedQuantity,
+                                                       List<OffsetDecrement> decrements);
+
+    // Offset aware bulk decrement for stock the caller already checked, one update per product and partition in a
+    // single unordered bulk write. An update only applies while none of its offsets were applied and the stock still
+    // covers it, and stores the last offset with the decrement.
+    // Returns the decrements that were not applied, e.g. because another writer lowered the stock since the check.
+    List<OffsetDecrement> decrementStocksAtOffsets(List<OffsetDecrement> decrements);
+
+    // Inserts new products in a single unordered bulk write, a rejected product does not stop the others.
+    // Returns the reason per list index of every product that was not inserted, e.g. because it already exists.
+    Map<Integer, String> insertStocks(List<WarehouseStock> stocks);
+
+    // Creates the availableQuantity_productName index of the stock list keyset pages if missing,
+    // independent of spring.data.mongodb.auto-index-creation
+    void ensureStockListIndex();
+
+    // Keyset page of the stock list ordered by sortBy and then product name, starting right after the cursor
+    // (from the beginning when it is null). Reads at most limit products, without skip or count.
+    List<WarehouseStock> findStockPageAfter(String sortBy, StockCursor after, int limit);
+
+    // Every product in product name order, read lazily from one Mongo cursor. The caller must close the stream.
+    Stream<WarehouseStock> streamAllStock();
+
+    // Quantity to take from a product whose stock was read as expectedQuantity
+    record StockDecrement(String productName, int expectedQuantity, int quantity) {
+    }
+
+    // Quantity of a product coalesced from the records firstOffset..lastOffset of one partition
+    record OffsetDecrement(String productName, int quantity, String partition, long firstOffset, long lastOffset) {
+    }
+}
@@ -0,0 +1,324 @@
+package com.KafkaOrderProcessingSystem.OrderProcessingSystem.repository;
+
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity.WarehouseStock;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils.StockCursor;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils.WarehouseStockCache;
+import com.mongodb.bulk.BulkWriteError;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationExpression;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.aggregation.ComparisonOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+@RequiredArgsConstructor
+public class WarehouseRepositoryCustomImpl implements WarehouseRepositoryCustom {
+
+    private static final int EXPORT_BATCH_SIZE = 1000;
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    // Tokens of the last bulk calls that decremented a product, see withToken
+    private static final String RECENT_ADJUSTMENTS = "recentAdjustments";
+
+    private static final int RECENT_ADJUSTMENTS_KEPT = 16;
+
+    private final MongoTemplate mongoTemplate;
+
+    // These updates bypass the cached repository methods, so they keep the stock cache in line themselves
+    private final WarehouseStockCache warehouseStockCache;
+
+    @Override
+    public Optional<WarehouseStock> decrementStockIfAvailable(String productName, int quantity) {
+        // Match only when enough stock remains, so the check and the decrement happen in one atomic update
+        Query query = Query.query(Criteria.where("productName").is(productName)
+                .and("availableQuantity").gte(quantity));
+        Update update = new Update().inc("availableQuantity", -quantity);
+
+        WarehouseStock updated = mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), WarehouseStock.class);
+        // The new document is returned anyway, so refresh the cache instead of evicting it
+        warehouseStockCache.put(updated);
+        return Optional.ofNullable(updated);
+    }
+
+    @Override
+    public Optional<WarehouseStock> decrementStockInOrder(String productName, List<Integer> quantities) {
+        // Return the previous document, the caller replays the quantities on it to tell which ones were taken
+        WarehouseStock previous = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("productName").is(productName)),
+                decrementInOrder(quantities),
+                FindAndModifyOptions.options().returnNew(false), WarehouseStock.class);
+        if (previous != null) {
+            warehouseStockCache.evict(productName);
+        }
+        return Optional.ofNullable(previous);
+    }
+
+    @Override
+    public Optional<WarehouseStock> adjustStock(String productName, int delta) {
+        Criteria criteria = Criteria.where("productName").is(productName);
+        if (delta < 0) {
+            criteria.and("availableQuantity").gte(-delta);
+        }
+        WarehouseStock updated = mongoTemplate.findAndModify(Query.query(criteria),
+                new Update().inc("availableQuantity", delta),
+                FindAndModifyOptions.options().returnNew(true), WarehouseStock.class);
+        // The new document is returned anyway, so refresh the cache instead of evicting it
+        warehouseStockCache.put(updated);
+        return Optional.ofNullable(updated);
+    }
+
+    @Override
+    public Set<String> decrementStocksIfUnchanged(List<StockDecrement> decrements) {
+        Set<String> missed = new HashSet<>();
+        if (decrements.isEmpty()) {
+            return missed;
+        }
+
+        String token = UUID.randomUUID().toString();
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, WarehouseStock.class);
+        decrements.forEach(decrement -> bulkOperations.updateOne(
+                Query.query(Criteria.where("productName").is(decrement.productName())
+                        .and("availableQuantity").is(decrement.expectedQuantity())),
+                withToken(new Update().inc("availableQuantity", -decrement.quantity()), token)));
+        int matched = bulkOperations.execute().getMatchedCount();
+        List<String> productNames = decrements.stream().map(StockDecrement::productName).toList();
+        warehouseStockCache.evict(productNames);
+
+        missed.addAll(productNames);
+        if (matched > 0) {
+            // The products that got the token of this call were decremented, the others were missed
+            Query query = Query.query(Criteria.where("productName").in(productNames).and(RECENT_ADJUSTMENTS).is(token));
+            query.fields().include("productName");
+            mongoTemplate.find(query, WarehouseStock.class).forEach(stock -> missed.remove(stock.getProductName()));
+        }
+        return missed;
+    }
+
+    @Override
+    public Set<String> adjustStocks(Map<String, Integer> deltasByProduct) {
+        if (deltasByProduct.isEmpty()) {
+            return new HashSet<>();
+        }
+
+        // Decrements match only while enough stock remains and record a token of this call on the product, so one
+        // read afterwards tells the refused ones apart
+        String token = UUID.randomUUID().toString();
+        List<String> decremented = new ArrayList<>();
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, WarehouseStock.class);
+        deltasByProduct.forEach((productName, delta) -> {
+            if (delta >= 0) {
+                bulkOperations.updateOne(Query.query(Criteria.where("productName").is(productName)),
+                        new Update().inc("availableQuantity", delta));
+                return;
+            }
+            bulkOperations.updateOne(Query.query(Criteria.where("productName").is(productName)
+                            .and("availableQuantity").gte(-delta)),
+                    withToken(new Update().inc("availableQuantity", delta), token));
+            decremented.add(productName);
+        });
+        bulkOperations.execute();
+        warehouseStockCache.evict(deltasByProduct.keySet());
+
+        Set<String> refused = new HashSet<>();
+        if (!decremented.isEmpty()) {
+            // Existing products without the token are the ones whose decrement did not fit
+            Query query = Query.query(Criteria.where("productName").in(decremented).and(RECENT_ADJUSTMENTS).ne(token));
+            query.fields().include("productName");
+            mongoTemplate.find(query, WarehouseStock.class).forEach(stock -> refused.add(stock.getProductName()));
+        }
+        return refused;
+    }
+
+    @Override
+    public Optional<WarehouseStock> decrementStockAtOffset(String productName, int quantity, String partition, long offset) {
+        // Return the previous document, the caller tells a decrement from a shortage by its quantity
+        WarehouseStock previous = mongoTemplate.findAndModify(notAppliedQuery(productName, partition, offset),
+                decrementAtOffset(quantity, partition, offset),
+                FindAndModifyOptions.options().returnNew(false), WarehouseStock.class);
+        if (previous != null) {
+            warehouseStockCache.evict(productName);
+        }
+        return Optional.ofNullable(previous);
+    }
+
+    @Override
+    public Optional<WarehouseStock> decrementStockIfUnchanged(String productName, int expectedQuantity,
+                                                              List<OffsetDecrement> decrements) {
+        // Compare and set on the quantity read, the caller already decided order by order what fits into it
+        Criteria criteria = Criteria.where("productName").is(productName).and("availableQuantity").is(expectedQuantity);
+        Update update = new Update().inc("availableQuantity",
+                -decrements.stream().mapToInt(OffsetDecrement::quantity).sum());
+        for (OffsetDecrement decrement : decrements) {
+            criteria.and(appliedOffsetField(decrement.partition())).not().gte(decrement.firstOffset());
+            update.set(appliedOffsetField(decrement.partition()), decrement.lastOffset());
+        }
+
+        WarehouseStock previous = mongoTemplate.findAndModify(Query.query(criteria), update,
+                FindAndModifyOptions.options().returnNew(false), WarehouseStock.class);
+        if (previous != null) {
+            warehouseStockCache.evict(productName);
+        }
+        return Optional.ofNullable(previous);
+    }
+
+    @Override
+    public List<OffsetDecrement> decrementStocksAtOffsets(List<OffsetDecrement> decrements) {
+        if (decrements.isEmpty()) {
+            return List.of();
+        }
+
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, WarehouseStock.class);
+        decrements.forEach(decrement -> {
+            Query guarded = notAppliedQuery(decrement.productName(), decrement.partition(), decrement.firstOffset());
+            guarded.addCriteria(Criteria.where("availableQuantity").gte(decrement.quantity()));
+            bulkOperations.updateOne(guarded, new Update().inc("availableQuantity", -decrement.quantity())
+                    .set(appliedOffsetField(decrement.partition()), decrement.lastOffset()));
+        });
+
+        int matched = bulkOperations.execute().getMatchedCount();
+        List<String> productNames = decrements.stream().map(OffsetDecrement::productName).toList();
+        warehouseStockCache.evict(productNames);
+        if (matched == decrements.size()) {
+            return List.of();
+        }
+
+        // The bulk result only has counts, the stored offsets tell which decrements were applied
+        Query query = Query.query(Criteria.where("productName").in(productNames));
+        query.fields().include("appliedOffsets");
+        Map<String, WarehouseStock> stored = new HashMap<>();
+        mongoTemplate.find(query, WarehouseStock.class).forEach(stock -> stored.put(stock.getProductName(), stock));
+        return decrements.stream()
+                .filter(decrement -> {
+                    WarehouseStock stock = stored.get(decrement.productName());
+                    Long appliedOffset = stock != null && stock.getAppliedOffsets() != null
+                            ? stock.getAppliedOffsets().get(decrement.partition())
+                            : null;
+                    return appliedOffset == null || appliedOffset < decrement.lastOffset();
+                })
+                .toList();
+    }
+
+    @Override
+    public Map<Integer, String> insertStocks(List<WarehouseStock> stocks) {
+        Map<Integer, String> rejected = new HashMap<>();
+        if (stocks.isEmpty()) {
+            return rejected;
+        }
+
+        // New products only, so nothing cached goes stale and the cache is left alone
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, WarehouseStock.class)
+                    .insert(stocks)
+                    .execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                rejected.put(error.getIndex(), error.getCode() == DUPLICATE_KEY
+                        ? "The product name already exists"
+                        : error.getMessage());
+            }
+        }
+        return rejected;
+    }
+
+    @Override
+    public void ensureStockListIndex() {
+        // Same name and keys as the @CompoundIndex declaration on WarehouseStock, a no-op when it already exists
+        mongoTemplate.indexOps(WarehouseStock.class).createIndex(new Index()
+                .on("availableQuantity", Sort.Direction.ASC)
+                .on("_id", Sort.Direction.ASC)
+                .named("availableQuantity_productName"));
+    }
+
+    @Override
+    public List<WarehouseStock> findStockPageAfter(String sortBy, StockCursor after, int limit) {
+        Query query = new Query();
+        if (after != null) {
+            query.addCriteria(seekAfter(sortBy, after));
+        }
+        // Product name breaks ties, so the order is total and the index on the sort key serves both seek and sort
+        query.with("availableQuantity".equals(sortBy)
+                ? Sort.by("availableQuantity", "productName")
+                : Sort.by("productName"));
+        query.limit(limit);
+        query.fields().exclude("appliedOffsets");
+        return mongoTemplate.find(query, WarehouseStock.class);
+    }
+
+    @Override
+    public Stream<WarehouseStock> streamAllStock() {
+        // Walks the _id index, the cursor fetches a batch at a time so memory stays flat however large the catalog
+        Query query = new Query().with(Sort.by("productName")).cursorBatchSize(EXPORT_BATCH_SIZE);
+        query.fields().exclude("appliedOffsets");
+        return mongoTemplate.stream(query, WarehouseStock.class);
+    }
+
+    // Everything after the last product of the previous page in (sortBy, productName) order
+    private static Criteria seekAfter(String sortBy, StockCursor after) {
+        if (!"availableQuantity".equals(sortBy)) {
+            return Criteria.where("productName").gt(after.productName());
+        }
+        return new Criteria().orOperator(
+                Criteria.where("availableQuantity").gt(after.availableQuantity()),
+                Criteria.where("availableQuantity").is(after.availableQuantity())
+                        .and("productName").gt(after.productName()));
+    }
+
+    // Records the token of a bulk call on the updated product, so a read afterwards can tell which updates applied.
+    // A few recent tokens are kept, for concurrent calls touching the same product.
+    private static Update withToken(Update update, String token) {
+        return update.push(RECENT_ADJUSTMENTS).slice(-RECENT_ADJUSTMENTS_KEPT).each(token);
+    }
+
+    // Matches the product while none of the records from this offset on were applied
+    private static Query notAppliedQuery(String productName, String partition, long offset) {
+        return Query.query(Criteria.where("productName").is(productName)
+                .and(appliedOffsetField(partition)).not().gte(offset));
+    }
+
+    // Pipeline update: $reduce walks the quantities in order, each one is only taken while the running stock covers it
+    private static AggregationUpdate decrementInOrder(List<Integer> quantities) {
+        AggregationExpression inOrder = context -> new Document("$reduce", new Document("input", quantities)
+                .append("initialValue", "$availableQuantity")
+                .append("in", new Document("$cond", List.of(
+                        new Document("$gte", List.of("$$value", "$$this")),
+                        new Document("$subtract", List.of("$$value", "$$this")),
+                        "$$value"))));
+        return AggregationUpdate.update().set("availableQuantity").toValue(inOrder);
+    }
+
+    // Pipeline update: decrement only if enough stock remains, record the offset in any case
+    private static AggregationUpdate decrementAtOffset(int quantity, String partition, long offset) {
+        return AggregationUpdate.update()
+                .set("availableQuantity").toValue(ConditionalOperators
+                        .when(ComparisonOperators.valueOf("availableQuantity").greaterThanEqualToValue(quantity))
+                        .then(ArithmeticOperators.valueOf("availableQuantity").subtract(quantity))
+                        .otherwiseValueOf("availableQuantity"))
+                .set(appliedOffsetField(partition)).toValue(offset);
+    }
+
+    private static String appliedOffsetField(String partition) {
+        return "appliedOffsets." + partition;
+    }
+}
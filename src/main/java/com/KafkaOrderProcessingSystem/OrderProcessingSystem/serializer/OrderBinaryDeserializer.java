@@ -0,0 +1,50 @@
+package com.KafkaOrderProcessingSystem.OrderProcessingSystem.serializer;
+
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity.Order;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+import static com.KafkaOrderProcessingSystem.OrderProcessingSystem.serializer.OrderBinaryFormat.*;
+
+// Reads binary Order records, and JSON records written by JsonSerializer so both formats can share the topic
+// while producers are switched over
+public class OrderBinaryDeserializer implements Deserializer<Order> {
+
+    // Type headers are ignored, every record on the topic is an Order
+    private final JsonDeserializer<Order> jsonFallback = new JsonDeserializer<>(Order.class, false);
+
+    @Override
+    public Order deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (data.length > 0 && data[0] == JSON_START) {
+            return jsonFallback.deserialize(topic, data);
+        }
+
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            byte version = buffer.get();
+            if (version != VERSION_1) {
+                throw new SerializationException("Unsupported order record version: " + version);
+            }
+            Order order = new Order();
+            order.setOrderId(readString(buffer));
+            order.setProductName(readString(buffer));
+            order.setQuantity(buffer.getInt());
+            order.setStatus(status(buffer.get(), buffer));
+            return order;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new SerializationException("Malformed order record on topic " + topic, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        jsonFallback.close();
+    }
+}
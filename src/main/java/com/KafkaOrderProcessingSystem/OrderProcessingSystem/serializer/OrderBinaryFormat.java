@@ -0,0 +1,116 @@
+package com.KafkaOrderProcessingSystem.OrderProcessingSystem.serializer;
+
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity.OrderStatus;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// Layout of the binary Order record, version 1:
+//   byte    version
+//   string  orderId
+//   string  productName
+//   int32   quantity (big endian, fixed width)
+//   byte    status code, followed by a string only for STATUS_OTHER
+// A string is a varint of (UTF-8 length + 1) followed by the bytes, 0 stands for null.
+final class OrderBinaryFormat {
+
+    static final byte VERSION_1 = 1;
+
+    // JSON records always start with '{', version bytes must never take this value
+    static final byte JSON_START = '{';
+
+    static final byte STATUS_NULL = 0;
+    static final byte STATUS_PENDING = 1;
+    static final byte STATUS_PROCESSED = 2;
+    static final byte STATUS_FAILED = 3;
+    static final byte STATUS_OTHER = 127;
+
+    private OrderBinaryFormat() {
+    }
+
+    // Codes are fixed here rather than taken from the enum ordinal, so reordering OrderStatus keeps old records readable
+    static byte statusCode(String status) {
+        if (status == null) {
+            return STATUS_NULL;
+        }
+        if (status.equals(OrderStatus.PENDING.name())) {
+            return STATUS_PENDING;
+        }
+        if (status.equals(OrderStatus.PROCESSED.name())) {
+            return STATUS_PROCESSED;
+        }
+        if (status.equals(OrderStatus.FAILED.name())) {
+            return STATUS_FAILED;
+        }
+        return STATUS_OTHER;
+    }
+
+    static String status(byte code, ByteBuffer buffer) {
+        return switch (code) {
+            case STATUS_NULL -> null;
+            case STATUS_PENDING -> OrderStatus.PENDING.name();
+            case STATUS_PROCESSED -> OrderStatus.PROCESSED.name();
+            case STATUS_FAILED -> OrderStatus.FAILED.name();
+            case STATUS_OTHER -> readString(buffer);
+            default -> throw new IllegalArgumentException("Unknown order status code: " + code);
+        };
+    }
+
+    static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    static int stringSize(byte[] bytes) {
+        int length = bytes == null ? 0 : bytes.length + 1;
+        return varintSize(length) + (bytes == null ? 0 : bytes.length);
+    }
+
+    static void writeString(ByteBuffer buffer, byte[] bytes) {
+        if (bytes == null) {
+            writeVarint(buffer, 0);
+            return;
+        }
+        writeVarint(buffer, bytes.length + 1);
+        buffer.put(bytes);
+    }
+
+    static String readString(ByteBuffer buffer) {
+        int length = readVarint(buffer);
+        if (length == 0) {
+            return null;
+        }
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length - 1,
+                StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length - 1);
+        return value;
+    }
+
+    private static int varintSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    private static void writeVarint(ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static int readVarint(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed length in order record");
+    }
+}
@@ -0,0 +1,38 @@
+package com.KafkaOrderProcessingSystem.OrderProcessingSystem.serializer;
+
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity.Order;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.nio.ByteBuffer;
+
+import static com.KafkaOrderProcessingSystem.OrderProcessingSystem.serializer.OrderBinaryFormat.*;
+
+// Writes Order records in the compact binary layout of OrderBinaryFormat, without type headers
+public class OrderBinarySerializer implements Serializer<Order> {
+
+    @Override
+    public byte[] serialize(String topic, Order order) {
+        if (order == null) {
+            return null;
+        }
+
+        byte[] orderId = utf8(order.getOrderId());
+        byte[] productName = utf8(order.getProductName());
+        byte status = statusCode(order.getStatus());
+        byte[] otherStatus = status == STATUS_OTHER ? utf8(order.getStatus()) : null;
+
+        // Size the buffer exactly, so the backing array is the record value
+        int size = 1 + stringSize(orderId) + stringSize(productName) + Integer.BYTES + 1
+                + (status == STATUS_OTHER ? stringSize(otherStatus) : 0);
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.put(VERSION_1);
+        writeString(buffer, orderId);
+        writeString(buffer, productName);
+        buffer.putInt(order.getQuantity());
+        buffer.put(status);
+        if (status == STATUS_OTHER) {
+            writeString(buffer, otherStatus);
+        }
+        return buffer.array();
+    }
+}
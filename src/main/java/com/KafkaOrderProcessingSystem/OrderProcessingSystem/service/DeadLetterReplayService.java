@@ -0,0 +1,7 @@
+package com.KafkaOrderProcessingSystem.OrderProcessingSystem.service;
+
+public interface DeadLetterReplayService {
+
+    int replay(int maxRecords);
+
+}
@@ -0,0 +1,133 @@
+package com.KafkaOrderProcessingSystem.OrderProcessingSystem.service.Impl;
+
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.config.KafkaConsumerConfig;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.service.DeadLetterReplayService;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils.OrderPublisher;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+// Sends the records of orders-dlt back to the orders topic.
+// Values are copied as raw bytes, so a record is replayed exactly as it was produced whatever serializer was used.
+// Progress is committed under its own consumer group, a record is only committed once the orders topic acknowledged it.
+@Slf4j
+@Service
+public class DeadLetterReplayServiceImpl implements DeadLetterReplayService {
+
+    static final String REPLAY_GROUP_ID = "orders-dlt-replay";
+
+    private static final Duration POLL_TIMEOUT = Duration.ofSeconds(1);
+
+    private final ConsumerFactory<Object, Object> consumerFactory;
+
+    private final ProducerFactory<Object, Object> replayProducerFactory;
+
+    public DeadLetterReplayServiceImpl(ConsumerFactory<Object, Object> consumerFactory,
+                                       ProducerFactory<Object, Object> producerFactory) {
+        this.consumerFactory = consumerFactory;
+        // Same producer settings, except that the value is passed through untouched
+        this.replayProducerFactory = producerFactory.copyWithConfigurationOverride(
+                Map.of(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class));
+    }
+
+    @Override
+    public int replay(int maxRecords) {
+        if (maxRecords <= 0) {
+            throw new RuntimeException("maxRecords must be greater than 0");
+        }
+
+        Properties overrides = new Properties();
+        overrides.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        overrides.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+        overrides.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        overrides.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+
+        try (Consumer<Object, Object> consumer = consumerFactory.createConsumer(REPLAY_GROUP_ID, null, null, overrides);
+             Producer<Object, Object> producer = replayProducerFactory.createProducer()) {
+
+            List<PartitionInfo> partitionInfos = consumer.partitionsFor(KafkaConsumerConfig.ORDERS_DLT_TOPIC);
+            if (partitionInfos == null || partitionInfos.isEmpty()) {
+                log.info("{} does not exist yet, nothing to replay", KafkaConsumerConfig.ORDERS_DLT_TOPIC);
+                return 0;
+            }
+            List<TopicPartition> partitions = partitionInfos.stream()
+                    .map(info -> new TopicPartition(info.topic(), info.partition()))
+                    .toList();
+            consumer.assign(partitions);
+
+            // Only what is in the topic now is replayed, an order that fails again lands behind these offsets
+            // and waits for the next replay instead of looping
+            Map<TopicPartition, Long> endOffsets = consumer.endOffsets(partitions);
+
+            int replayed = 0;
+            while (replayed < maxRecords && !caughtUp(consumer, endOffsets)) {
+                ConsumerRecords<Object, Object> records = consumer.poll(POLL_TIMEOUT);
+                if (records.isEmpty()) {
+                    break;
+                }
+
+                List<Future<RecordMetadata>> sends = new ArrayList<>(records.count());
+                Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+                for (ConsumerRecord<Object, Object> record : records) {
+                    TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+                    if (replayed >= maxRecords || record.offset() >= endOffsets.get(partition)) {
+                        continue;
+                    }
+                    // Same key, so the order lands on the partition of its product again
+                    sends.add(producer.send(new ProducerRecord<>(OrderPublisher.TOPIC, record.key(), record.value())));
+                    offsets.put(partition, new OffsetAndMetadata(record.offset() + 1));
+                    replayed++;
+                }
+
+                awaitAcknowledgements(sends);
+                consumer.commitSync(offsets);
+            }
+
+            log.info("Replayed {} records from {} to {}", replayed, KafkaConsumerConfig.ORDERS_DLT_TOPIC,
+                    OrderPublisher.TOPIC);
+            return replayed;
+        }
+    }
+
+    private boolean caughtUp(Consumer<?, ?> consumer, Map<TopicPartition, Long> endOffsets) {
+        return endOffsets.entrySet().stream()
+                .allMatch(entry -> consumer.position(entry.getKey()) >= entry.getValue());
+    }
+
+    private void awaitAcknowledgements(List<Future<RecordMetadata>> sends) {
+        for (Future<RecordMetadata> send : sends) {
+            try {
+                send.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Replay of dead letter orders was interrupted");
+            } catch (ExecutionException e) {
+                throw new RuntimeException("Failed to replay dead letter orders: " + e.getCause().getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.KafkaOrderProcessingSystem.OrderProcessingSystem.service.Impl;
+
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.config.InventoryProperties;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.dto.ImportRowErrorDTO;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.dto.InventoryImportDTO;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.dto.WarehouseStockDTO;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity.WarehouseStock;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.repository.WarehouseRepository;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.service.InventoryImportService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class InventoryImportServiceImpl implements InventoryImportService {
+
+    private static final String CSV_HEADER = "productName";
+
+    private final WarehouseRepository warehouseRepository;
+
+    private final ObjectMapper objectMapper;
+
+    private final Validator validator;
+
+    private final InventoryProperties inventoryProperties;
+
+    @Override
+    public InventoryImportDTO importInventory(InputStream inputStream, Format format) throws IOException {
+        InventoryProperties.BulkImport settings = inventoryProperties.getBulkImport();
+        ImportResult result = new ImportResult(settings.getMaxReportedErrors());
+        Chunk chunk = new Chunk(settings.getChunkSize());
+
+        // Read line by line and written chunk by chunk, only one chunk of rows is held at a time
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || (format == Format.CSV && lineNumber == 1 && line.startsWith(CSV_HEADER))) {
+                continue;
+            }
+
+            WarehouseStockDTO row;
+            try {
+                row = format == Format.CSV ? parseCsv(line) : objectMapper.readValue(line, WarehouseStockDTO.class);
+                if (row == null) {
+                    throw new IllegalArgumentException("null row");
+                }
+            } catch (JsonProcessingException | IllegalArgumentException e) {
+                result.rejected(lineNumber, null, "Malformed row: " + line);
+                continue;
+            }
+
+            Set<ConstraintViolation<WarehouseStockDTO>> violations = validator.validate(row);
+            if (!violations.isEmpty()) {
+                result.rejected(lineNumber, row.getProductName(), violations.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .collect(Collectors.joining(", ")));
+                continue;
+            }
+
+            chunk.add(lineNumber, new WarehouseStock(row.getProductName(), row.getAvailableQuantity()));
+            if (chunk.isFull()) {
+                write(chunk, result);
+            }
+        }
+        write(chunk, result);
+
+        log.info("inventory import finished: {} products imported, {} rows rejected", result.imported, result.rejected);
+        return InventoryImportDTO.builder()
+                .imported(result.imported)
+                .rejected(result.rejected)
+                .errors(result.errors)
+                .message(result.imported + " products imported, " + result.rejected + " rows rejected")
+                .build();
+    }
+
+    // productName,availableQuantity, product names are letters and spaces only so no quoting is needed
+    private static WarehouseStockDTO parseCsv(String line) {
+        String[] fields = line.split(",", -1);
+        if (fields.length != 2) {
+            throw new IllegalArgumentException("expected 2 fields");
+        }
+        return WarehouseStockDTO.builder()
+                .productName(fields[0].trim())
+                .availableQuantity(Integer.parseInt(fields[1].trim()))
+                .build();
+    }
+
+    private void write(Chunk chunk, ImportResult result) {
+        if (chunk.stocks.isEmpty()) {
+            return;
+        }
+        Map<Integer, String> rejected = warehouseRepository.insertStocks(chunk.stocks);
+        result.imported += chunk.stocks.size() - rejected.size();
+        rejected.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(entry -> result.rejected(chunk.lines.get(entry.getKey()),
+                        chunk.stocks.get(entry.getKey()).getProductName(), entry.getValue()));
+        chunk.clear();
+    }
+
+    // Valid rows waiting for the next bulk insert, with the file line of each
+    private static class Chunk {
+
+        private final int size;
+
+        private final List<WarehouseStock> stocks;
+
+        private final List<Long> lines;
+
+        private Chunk(int size) {
+            this.size = size;
+            this.stocks = new ArrayList<>(size);
+            this.lines = new ArrayList<>(size);
+        }
+
+        private void add(long line, WarehouseStock stock) {
+            lines.add(line);
+            stocks.add(stock);
+        }
+
+        private boolean isFull() {
+            return stocks.size() >= size;
+        }
+
+        private void clear() {
+            lines.clear();
+            stocks.clear();
+        }
+    }
+
+    private static class ImportResult {
+
+        private final int maxReportedErrors;
+
+        private final List<ImportRowErrorDTO> errors = new ArrayList<>();
+
+        private long imported;
+
+        private long rejected;
+
+        private ImportResult(int maxReportedErrors) {
+            this.maxReportedErrors = maxReportedErrors;
+        }
+
+        private void rejected(long line, String productName, String message) {
+            rejected++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(ImportRowErrorDTO.builder()
+                        .line(line)
+                        .productName(productName)
+                        .message(message)
+                        .build());
+            }
+        }
+    }
+}
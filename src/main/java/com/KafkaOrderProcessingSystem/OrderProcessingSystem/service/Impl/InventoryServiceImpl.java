@@ -1,8 +1,16 @@
 package com.KafkaOrderProcessingSystem.OrderProcessingSystem.service.Impl;
 
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.dto.StockAdjustmentDTO;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.dto.StockCursorPageDTO;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.dto.WarehouseStockDTO;
 import com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity.WarehouseStock;
 import com.KafkaOrderProcessingSystem.OrderProcessingSystem.repository.WarehouseRepository;
 import com.KafkaOrderProcessingSystem.OrderProcessingSystem.service.InventoryService;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils.StockCursor;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils.StockReservations;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils.WarehouseStockCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
@@ -12,8 +20,17 @@ import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -21,6 +38,12 @@ public class InventoryServiceImpl implements InventoryService {
 
     private final WarehouseRepository warehouseRepository;
 
+    private final StockReservations stockReservations;
+
+    private final ObjectMapper objectMapper;
+
+    private final WarehouseStockCache warehouseStockCache;
+
     @Override
     @Transactional
     public void addInventory(WarehouseStock warehouseStock) {
@@ -41,21 +64,136 @@ public class InventoryServiceImpl implements InventoryService {
     }
 
     @Override
-    @Transactional
+    public StockCursorPageDTO getInventoryAfter(String cursor, int size, String sortBy) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Page size must not be less than one");
+        }
+        // An empty cursor starts the list, later pages keep the sort key the cursor was issued for
+        StockCursor after = cursor == null || cursor.isBlank() ? null : StockCursor.decode(cursor);
+        String sortKey = after != null ? after.sortBy() : sortBy;
+        if (!StockCursor.SORT_KEYS.contains(sortKey)) {
+            throw new RuntimeException("Cursor paging can only sort by " + StockCursor.SORT_KEYS);
+        }
+
+        // One extra product tells whether another page follows, without counting the collection
+        List<WarehouseStock> found = warehouseRepository.findStockPageAfter(sortKey, after, size + 1);
+        List<WarehouseStock> content = found.size() > size ? found.subList(0, size) : found;
+
+        String nextCursor = null;
+        if (found.size() > size) {
+            WarehouseStock last = content.get(size - 1);
+            nextCursor = new StockCursor(sortKey, last.getAvailableQuantity(), last.getProductName()).encode();
+        }
+        return StockCursorPageDTO.builder()
+                .content(content)
+                .size(content.size())
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    @Override
+    public void exportInventory(OutputStream outputStream) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(WarehouseStock.class);
+        // One JSON document per line, written as the cursor is read, nothing is collected or counted
+        try (Stream<WarehouseStock> stocks = warehouseRepository.streamAllStock()) {
+            Iterator<WarehouseStock> iterator = stocks.iterator();
+            while (iterator.hasNext()) {
+                outputStream.write(writer.writeValueAsBytes(iterator.next()));
+                outputStream.write('\n');
+            }
+        }
+        outputStream.flush();
+    }
+
+    @Override
     public WarehouseStock updateInventory(String existingProductName, int additionalQuantity) {
-        // Check if the existing product is present in inventory
-        Optional<WarehouseStock> existingOpt = warehouseRepository.findById(existingProductName);
-        if (existingOpt.isEmpty()) {
-            throw new RuntimeException("Product not found in inventory: " + existingProductName);
+        // Change the available quantity by the additional amount in one atomic update, a concurrent restock
+        // or order decrement of the product cannot be lost
+        Optional<WarehouseStock> updated = warehouseRepository.adjustStock(existingProductName, additionalQuantity);
+        if (updated.isEmpty()) {
+            throw new RuntimeException(warehouseRepository.existsById(existingProductName)
+                    ? "Adjustment exceeds available stock of " + existingProductName
+                    : "Product not found in inventory: " + existingProductName);
         }
 
-        // Get the existing product record
-        WarehouseStock existing = existingOpt.get();
+        // Restocked quantity becomes available to the producer side reservations as well
+        stockReservations.adjust(existingProductName, additionalQuantity);
+        return updated.get();
+    }
+
+    @Override
+    public List<WarehouseStockDTO> adjustInventory(List<StockAdjustmentDTO> adjustments) {
+        // Repeated products are summed, so every product gets exactly one $inc in the bulk write
+        Map<String, Integer> deltasByProduct = new LinkedHashMap<>();
+        adjustments.forEach(adjustment ->
+                deltasByProduct.merge(adjustment.getProductName(), adjustment.getDelta(), Integer::sum));
+
+        // Increments are applied atomically in Mongo, concurrent restocks of a product cannot overwrite each other.
+        // A decrement larger than the stock is refused instead of taking the quantity below zero.
+        Set<String> refused = warehouseRepository.adjustStocks(deltasByProduct);
+
+        // One read for the resulting quantities, products missing here were not found and not adjusted
+        Map<String, WarehouseStock> found = new HashMap<>();
+        warehouseRepository.findAllById(deltasByProduct.keySet())
+                .forEach(stock -> found.put(stock.getProductName(), stock));
+        found.keySet().stream()
+                .filter(productName -> !refused.contains(productName))
+                .forEach(productName -> stockReservations.adjust(productName, deltasByProduct.get(productName)));
+
+        // One result per requested adjustment, in request order
+        return adjustments.stream()
+                .map(adjustment -> adjustmentResult(adjustment.getProductName(),
+                        found.get(adjustment.getProductName()), refused.contains(adjustment.getProductName())))
+                .toList();
+    }
+
+    private WarehouseStockDTO adjustmentResult(String productName, WarehouseStock stock, boolean refused) {
+        String message;
+        if (stock == null) {
+            message = "Product not found in inventory: " + productName;
+        } else if (refused) {
+            message = "Adjustment exceeds available stock: " + stock.getAvailableQuantity();
+        } else {
+            message = "Stock updated successfully";
+        }
+        return WarehouseStockDTO.builder()
+                .productName(productName)
+                .availableQuantity(stock != null ? stock.getAvailableQuantity() : 0)
+                .message(message)
+                .build();
+    }
 
-        // Increase the available quantity by the additional amount
-        existing.setAvailableQuantity(existing.getAvailableQuantity() + additionalQuantity);
+    @Override
+    public List<WarehouseStockDTO> lookupInventory(List<String> productNames) {
+        // Answer from the stock cache first, the misses are read from Mongo in a single round trip
+        Map<String, WarehouseStock> found = new HashMap<>();
+        Set<String> misses = new HashSet<>();
+        for (String productName : productNames) {
+            WarehouseStock cached = warehouseStockCache.get(productName);
+            if (cached != null) {
+                found.put(productName, cached);
+            } else {
+                misses.add(productName);
+            }
+        }
+        if (!misses.isEmpty()) {
+            warehouseRepository.findAllById(misses).forEach(stock -> {
+                found.put(stock.getProductName(), stock);
+                // Cached like a findById read, so the next lookup of the product is answered from memory
+                warehouseStockCache.put(stock);
+            });
+        }
 
-        // Save updated product details to a database
-        return warehouseRepository.save(existing);
+        // One result per requested product, in request order
+        return productNames.stream()
+                .map(productName -> {
+                    WarehouseStock stock = found.get(productName);
+                    return WarehouseStockDTO.builder()
+                            .productName(productName)
+                            .availableQuantity(stock != null ? stock.getAvailableQuantity() : 0)
+                            .message(stock != null ? null : "Product not found in inventory: " + productName)
+                            .build();
+                })
+                .toList();
     }
 }
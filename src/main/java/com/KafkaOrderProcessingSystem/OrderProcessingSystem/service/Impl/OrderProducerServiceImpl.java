@@ -1,63 +1,93 @@
 package com.KafkaOrderProcessingSystem.OrderProcessingSystem.service.Impl;
 
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.config.KafkaProducerProperties;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.config.OrderProperties;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.dto.OrderResponseDTO;
 import com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity.Order;
 import com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity.OrderStatus;
 import com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity.WarehouseStock;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.exception.DuplicateOrderException;
 import com.KafkaOrderProcessingSystem.OrderProcessingSystem.exception.OrderProcessingException;
 import com.KafkaOrderProcessingSystem.OrderProcessingSystem.repository.OrderRepository;
 import com.KafkaOrderProcessingSystem.OrderProcessingSystem.repository.WarehouseRepository;
 import com.KafkaOrderProcessingSystem.OrderProcessingSystem.service.OrderProducerService;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils.OrderIdGenerator;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils.OrderIdempotencyGuard;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils.OrderPublisher;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils.StockReservations;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class OrderProducerServiceImpl implements OrderProducerService {
 
-    // Kafka template used to publish orders to the Kafka topic.
-    private final KafkaTemplate<String, Order> kafkaTemplate;
+    // Publishes orders to the Kafka topic and tracks their acknowledgement
+    private final OrderPublisher orderPublisher;
 
     private final OrderRepository orderRepository;
 
     private final WarehouseRepository warehouseRepository;
 
-    private static final String TOPIC = "orders";  // Kafka topic name
+    private final KafkaProducerProperties producerProperties;
+
+    private final StockReservations stockReservations;
+
+    private final OrderIdempotencyGuard idempotencyGuard;
+
+    private final OrderProperties orderProperties;
+
+    private final OrderIdGenerator orderIdGenerator;
+
+    private static final String QUEUED_MESSAGE = "Order submitted successfully and queued for processing";
 
     @Override
     @Transactional
     public void submitOrder(Order order) {
+        assignOrderId(order);
         log.info("Received order request: {}", order);
-        
-        // Check if the product exists in warehouse stock
-        WarehouseStock stock = warehouseRepository.findById(order.getProductName())
-                .orElseThrow(() -> new RuntimeException("Product not found"));
 
-        // Check if the product is out of stock
-        if (stock.getAvailableQuantity() <= 0) {
-            handleOrderStatus(order, OrderStatus.FAILED, "Out of Stock", true);
+        // A retry of an accepted order gets the original result back and is not sent again
+        Optional<Order> original = idempotencyGuard.findAccepted(order.getOrderId());
+        if (original.isPresent()) {
+            applyOriginal(order, original.get());
+            return;
         }
-        // Check if requested quantity exceeds available stock
-        else if (order.getQuantity() > stock.getAvailableQuantity()) {
-            handleOrderStatus(order, OrderStatus.FAILED,
-                    "Order Quantity exceeds available stock: " + stock.getAvailableQuantity(),
-                    true);
+
+        try {
+            validateAndPersist(order, idempotencyGuard.isDefinitelyNew(order.getOrderId()));
+        } catch (DuplicateOrderException e) {
+            applyOriginal(order, e.getOriginal());
+            return;
         }
-        // Otherwise, mark order as processed successfully
-        else {
-            handleOrderStatus(order, OrderStatus.PROCESSED, null, false);
+
+        // In outbox mode the saved order is all there is to do, the relay publishes it
+        if (outboxEnabled()) {
+            idempotencyGuard.remember(order);
+            log.info("Order saved (RECEIVED) to the outbox: {}", order);
+            return;
         }
 
         try {
             log.info("data has been saved in Order database");
 
-            // Send order to a Kafka topic
-            kafkaTemplate.send(TOPIC, order.getOrderId(), order);
+            // Send order to a Kafka topic, the acknowledgement is tracked by the publisher
+            orderPublisher.publish(recordKey(order), order);
             log.info("Order saved (RECEIVED) and sent to Kafka: {}", order);
 
         } catch (Exception e) {
@@ -67,16 +97,350 @@ public class OrderProducerServiceImpl implements OrderProducerService {
 
     }
 
+    @Override
+    @Transactional
+    public CompletableFuture<Order> submitOrderAsync(Order order) {
+        assignOrderId(order);
+        log.info("Received async order request: {}", order);
+
+        // A retry of an accepted order gets the original result back and is not sent again
+        Optional<Order> original = idempotencyGuard.findAccepted(order.getOrderId());
+        if (original.isPresent()) {
+            applyOriginal(order, original.get());
+            return CompletableFuture.completedFuture(original.get());
+        }
+
+        try {
+            validateAndPersist(order, idempotencyGuard.isDefinitelyNew(order.getOrderId()));
+        } catch (DuplicateOrderException e) {
+            applyOriginal(order, e.getOriginal());
+            return CompletableFuture.completedFuture(e.getOriginal());
+        }
+
+        if (outboxEnabled()) {
+            idempotencyGuard.remember(order);
+            return CompletableFuture.completedFuture(order);
+        }
+
+        // Complete once the broker acknowledges the record, the calling thread does not wait for it
+        try {
+            return orderPublisher.publish(recordKey(order), order);
+        } catch (Exception e) {
+            log.error("Error while sending order to Kafka: {}", e.getMessage(), e);
+            return CompletableFuture.failedFuture(new OrderProcessingException(e.getMessage(), e));
+        }
+    }
+
+    @Override
+    @Transactional
+    public List<OrderResponseDTO> submitOrders(List<Order> orders) {
+        log.info("Received batch of {} orders", orders.size());
+        orders.forEach(this::assignOrderId);
+
+        // Retries of accepted orders are answered from the original orders, found with at most one query
+        Map<String, Order> originals = idempotencyGuard.findAccepted(orders.stream()
+                .map(Order::getOrderId)
+                .filter(OrderProducerServiceImpl::hasOrderId)
+                .collect(Collectors.toSet()));
+
+        // Look up the stock of every product in the batch with a single round trip
+        // With reservations enabled only products without a counter yet need to be read
+        boolean reserving = stockReservations.isEnabled();
+        Set<String> productNames = orders.stream()
+                .map(Order::getProductName)
+                .filter(Objects::nonNull)
+                .filter(productName -> !reserving || !stockReservations.isTracked(productName))
+                .collect(Collectors.toSet());
+        Map<String, Integer> remainingStock = new HashMap<>();
+        if (!productNames.isEmpty()) {
+            warehouseRepository.findAllById(productNames).forEach(stock -> {
+                remainingStock.put(stock.getProductName(), stock.getAvailableQuantity());
+                if (reserving) {
+                    stockReservations.seed(stock);
+                }
+            });
+        }
+
+        // Results are kept in request order so the caller can match them to the submitted orders
+        OrderResponseDTO[] results = new OrderResponseDTO[orders.size()];
+        List<Integer> persistIndexes = new ArrayList<>(orders.size());
+        List<Integer> acceptedIndexes = new ArrayList<>(orders.size());
+        // Index of the first order with the same id, a repeated id in one batch shares the first result.
+        // Orders without an id are never duplicates of each other.
+        Map<String, Integer> firstIndexById = new HashMap<>();
+        Map<Integer, Integer> repeatedIndexes = new HashMap<>();
+
+        for (int i = 0; i < orders.size(); i++) {
+            Order order = orders.get(i);
+
+            if (hasOrderId(order.getOrderId())) {
+                Order original = originals.get(order.getOrderId());
+                if (original != null) {
+                    results[i] = toResponse(original, QUEUED_MESSAGE);
+                    continue;
+                }
+                Integer firstIndex = firstIndexById.putIfAbsent(order.getOrderId(), i);
+                if (firstIndex != null) {
+                    repeatedIndexes.put(i, firstIndex);
+                    continue;
+                }
+            }
+
+            // Unknown products are rejected without persisting, same as the single order path
+            boolean known = reserving
+                    ? stockReservations.isTracked(order.getProductName())
+                    : remainingStock.containsKey(order.getProductName());
+            if (!known) {
+                results[i] = toResponse(order, "Product not found");
+                continue;
+            }
+
+            String rejection;
+            if (reserving) {
+                rejection = rejectionMessage(order,
+                        stockReservations.tryReserve(order.getProductName(), order.getQuantity()));
+            } else {
+                int available = remainingStock.get(order.getProductName());
+                rejection = rejectionMessage(order, available);
+                if (rejection == null) {
+                    // Reserve the quantity within the batch so later orders for the same product see what is left
+                    remainingStock.put(order.getProductName(), available - order.getQuantity());
+                }
+            }
+
+            if (rejection != null) {
+                order.setStatus(OrderStatus.FAILED.name());
+                results[i] = toResponse(order, rejection);
+            } else {
+                order.setStatus(OrderStatus.PROCESSED.name());
+                markForOutbox(order);
+                acceptedIndexes.add(i);
+            }
+            persistIndexes.add(i);
+        }
+
+        // Bulk insert every processed and failed order in one round trip, the unique _id catches ids
+        // accepted before a restart or by another instance
+        if (!persistIndexes.isEmpty()) {
+            try {
+                Set<String> takenIds = orderRepository.insertAbsent(persistIndexes.stream().map(orders::get).toList());
+                if (!takenIds.isEmpty()) {
+                    resolveTakenIds(orders, takenIds, persistIndexes, acceptedIndexes, results);
+                }
+            } catch (RuntimeException e) {
+                acceptedIndexes.forEach(index -> releaseReservation(orders.get(index)));
+                throw e;
+            }
+        }
+
+        // The outbox marker was part of the bulk insert, the relay takes it from here
+        if (outboxEnabled()) {
+            for (int index : acceptedIndexes) {
+                Order order = orders.get(index);
+                idempotencyGuard.remember(order);
+                results[index] = toResponse(order, QUEUED_MESSAGE);
+            }
+            repeatedIndexes.forEach((index, firstIndex) -> results[index] = results[firstIndex]);
+            log.info("Batch of {} orders handled, {} written to the outbox", orders.size(), acceptedIndexes.size());
+            return Arrays.asList(results);
+        }
+
+        // Pipeline all sends and only wait once every record has been handed to the producer
+        List<CompletableFuture<Void>> acks = new ArrayList<>(acceptedIndexes.size());
+        for (int index : acceptedIndexes) {
+            Order order = orders.get(index);
+            try {
+                acks.add(orderPublisher.publish(recordKey(order), order)
+                        .handle((result, ex) -> {
+                            results[index] = ex == null ? toResponse(order, QUEUED_MESSAGE) : sendFailureResponse(order, ex);
+                            return null;
+                        }));
+            } catch (Exception e) {
+                results[index] = sendFailureResponse(order, e);
+            }
+        }
+        CompletableFuture.allOf(acks.toArray(new CompletableFuture[0])).join();
+        repeatedIndexes.forEach((index, firstIndex) -> results[index] = results[firstIndex]);
+
+        log.info("Batch of {} orders handled, {} sent to Kafka", orders.size(), acceptedIndexes.size());
+        return Arrays.asList(results);
+    }
+
+    // Orders of the batch whose id was already taken: an accepted order wins and its result is returned,
+    // a failed earlier attempt is overwritten by this one
+    private void resolveTakenIds(List<Order> orders, Set<String> takenIds, List<Integer> persistIndexes,
+                                 List<Integer> acceptedIndexes, OrderResponseDTO[] results) {
+        Map<String, Order> stored = new HashMap<>();
+        orderRepository.findAllById(takenIds).forEach(existing -> stored.put(existing.getOrderId(), existing));
+
+        List<Order> toOverwrite = new ArrayList<>();
+        for (int index : persistIndexes) {
+            Order order = orders.get(index);
+            if (!takenIds.contains(order.getOrderId())) {
+                continue;
+            }
+            Order existing = stored.get(order.getOrderId());
+            if (existing != null && OrderIdempotencyGuard.isAccepted(existing)) {
+                if (acceptedIndexes.remove(Integer.valueOf(index))) {
+                    releaseReservation(order);
+                }
+                results[index] = toResponse(existing, QUEUED_MESSAGE);
+            } else {
+                toOverwrite.add(order);
+            }
+        }
+        if (!toOverwrite.isEmpty()) {
+            orderRepository.saveAll(toOverwrite);
+        }
+    }
+
+    // Copies the stored result of the first attempt into the retried order
+    private void applyOriginal(Order order, Order original) {
+        log.info("Duplicate order {}, returning the original result", original.getOrderId());
+        order.setProductName(original.getProductName());
+        order.setQuantity(original.getQuantity());
+        order.setStatus(original.getStatus());
+    }
+
+    // Replaces or fills in the client order id depending on the configured id mode
+    private void assignOrderId(Order order) {
+        if (orderProperties.getIdGeneration().getMode().generates(order.getOrderId())) {
+            order.setOrderId(orderIdGenerator.nextId());
+        }
+    }
+
+    private static boolean hasOrderId(String orderId) {
+        return orderId != null && !orderId.isBlank();
+    }
+
+    private boolean outboxEnabled() {
+        return orderProperties.getOutbox().isEnabled();
+    }
+
+    // Accepted orders carry the outbox marker in the same document, so the order and its pending send
+    // are written atomically without a multi-document transaction
+    private void markForOutbox(Order order) {
+        if (outboxEnabled()) {
+            order.setOutboxCreatedAt(Instant.now());
+        }
+    }
+
+    // Record key chosen by the configured strategy, keying by product gives each product a single partition
+    private String recordKey(Order order) {
+        return producerProperties.getKeyStrategy().keyFor(order);
+    }
+
+    // An order that never reached Kafka is reported as FAILED, same as the single order path
+    private OrderResponseDTO sendFailureResponse(Order order, Throwable ex) {
+        Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+        log.error("Error while sending order to Kafka: {}", cause.getMessage(), cause);
+        order.setStatus(OrderStatus.FAILED.name());
+        return toResponse(order, "Failed to queue order: " + cause.getMessage());
+    }
+
+    private OrderResponseDTO toResponse(Order order, String message) {
+        return OrderResponseDTO.builder()
+                .orderId(order.getOrderId())
+                .productName(order.getProductName())
+                .quantity(order.getQuantity())
+                .status(order.getStatus())
+                .message(message)
+                .build();
+    }
+
+    // Validates the order against warehouse stock and persists it with its resulting status
+    private void validateAndPersist(Order order, boolean newOrderId) {
+        if (stockReservations.isEnabled()) {
+            validateAndReserve(order, newOrderId);
+            return;
+        }
+
+        // Check if the product exists in warehouse stock
+        WarehouseStock stock = warehouseRepository.findById(order.getProductName())
+                .orElseThrow(() -> new RuntimeException("Product not found"));
+
+        String rejection = rejectionMessage(order, stock.getAvailableQuantity());
+        if (rejection != null) {
+            handleOrderStatus(order, OrderStatus.FAILED, rejection, true, newOrderId);
+        }
+        // Otherwise, mark order as processed successfully
+        else {
+            handleOrderStatus(order, OrderStatus.PROCESSED, null, false, newOrderId);
+        }
+    }
+
+    // Same checks against the in-memory counter, the quantity is taken in the same atomic step
+    private void validateAndReserve(Order order, boolean newOrderId) {
+        String rejection = rejectionMessage(order,
+                stockReservations.tryReserve(order.getProductName(), order.getQuantity()));
+        if (rejection != null) {
+            handleOrderStatus(order, OrderStatus.FAILED, rejection, true, newOrderId);
+            return;
+        }
+        try {
+            handleOrderStatus(order, OrderStatus.PROCESSED, null, false, newOrderId);
+        } catch (RuntimeException e) {
+            releaseReservation(order);
+            throw e;
+        }
+    }
+
+    // Reason the order cannot be fulfilled from the available stock, null when it can
+    private String rejectionMessage(Order order, int available) {
+        // Check if the product is out of stock
+        if (available <= 0) {
+            return "Out of Stock";
+        }
+        // Check if requested quantity exceeds available stock
+        if (order.getQuantity() > available) {
+            return "Order Quantity exceeds available stock: " + available;
+        }
+        return null;
+    }
+
+    private String rejectionMessage(Order order, StockReservations.Reservation reservation) {
+        return reservation.reserved() ? null : rejectionMessage(order, reservation.available());
+    }
+
+    // Gives the reserved quantity back when an admitted order could not be persisted, once handed to the
+    // publisher a failed send releases it there
+    private void releaseReservation(Order order) {
+        if (stockReservations.isEnabled()) {
+            stockReservations.release(order.getProductName(), order.getQuantity());
+        }
+    }
+
     // Helper method to handle setting order status and error messages
     // Industry practice: keep method responsibilities small, persist and optionally signal error
-    private void handleOrderStatus(Order order, OrderStatus status, String message, boolean throwException) {
+    private void handleOrderStatus(Order order, OrderStatus status, String message, boolean throwException,
+                                   boolean newOrderId) {
         // Persist status as String to be compatible with current DB schema
         order.setStatus(status.name());
-        orderRepository.save(order);
+        if (status == OrderStatus.PROCESSED) {
+            markForOutbox(order);
+        }
+        persist(order, newOrderId);
 
         if (throwException) {
             throw new RuntimeException(message);
         }
     }
 
+    // Ids this instance never accepted are inserted so the unique _id rejects an order accepted elsewhere,
+    // known ids were already checked by the idempotency guard and may overwrite a failed attempt
+    private void persist(Order order, boolean newOrderId) {
+        if (!newOrderId) {
+            orderRepository.save(order);
+            return;
+        }
+        if (orderRepository.insertAbsent(List.of(order)).isEmpty()) {
+            return;
+        }
+        Optional<Order> existing = orderRepository.findById(order.getOrderId());
+        if (existing.isPresent() && OrderIdempotencyGuard.isAccepted(existing.get())) {
+            throw new DuplicateOrderException(existing.get());
+        }
+        orderRepository.save(order);
+    }
+
 }
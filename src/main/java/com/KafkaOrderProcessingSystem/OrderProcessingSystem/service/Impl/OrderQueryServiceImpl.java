@@ -0,0 +1,57 @@
+package com.KafkaOrderProcessingSystem.OrderProcessingSystem.service.Impl;
+
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.dto.OrderCursorPageDTO;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity.Order;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.repository.OrderRepository;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.service.OrderQueryService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class OrderQueryServiceImpl implements OrderQueryService {
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final OrderRepository orderRepository;
+
+    @Override
+    public OrderCursorPageDTO findOrders(String status, String productName, String cursor, int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        String afterOrderId = cursor == null || cursor.isBlank() ? null : decode(cursor);
+
+        // One extra order tells whether another page follows, without counting the collection
+        List<Order> found = orderRepository.findOrdersAfter(blankToNull(status), blankToNull(productName),
+                afterOrderId, size + 1);
+        List<Order> content = found.size() > size ? found.subList(0, size) : found;
+
+        return OrderCursorPageDTO.builder()
+                .content(content)
+                .size(content.size())
+                .nextCursor(found.size() > size ? encode(content.get(size - 1).getOrderId()) : null)
+                .build();
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+
+    // The cursor is the last order id, kept opaque so clients do not build their own
+    private static String encode(String orderId) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(orderId.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decode(String cursor) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Invalid cursor: " + cursor);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.KafkaOrderProcessingSystem.OrderProcessingSystem.service.Impl;
+
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity.Order;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.service.WarehouseConsumerService;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils.WarehouseStockUpdate;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(prefix = "app.kafka.consumer", name = "mode", havingValue = "batch")
+public class WarehouseBatchConsumerServiceImpl implements WarehouseConsumerService {
+
+    private final WarehouseStockUpdate warehouseStockUpdate;
+
+    @Override
+    public void consumeOrder(Order order) {
+        consumeOrders(List.of(order));
+    }
+
+    // Batch Kafka listener: receives every record of a poll and updates stock once per product,
+    // together with the last offset applied per partition, so a redelivered poll is not applied twice
+    @KafkaListener(topics = "orders", groupId = "warehouse-group", containerFactory = "batchKafkaListenerContainerFactory")
+    public void consumeRecords(List<ConsumerRecord<String, Order>> records) {
+        log.info("batch of {} orders is ready for consumer service to update warehouse stock", records.size());
+        warehouseStockUpdate.processRecords(records);
+    }
+
+    @Override
+    public void consumeOrders(List<Order> orders) {
+        log.info("batch of {} orders is ready for consumer service to update warehouse stock", orders.size());
+        warehouseStockUpdate.processOrders(orders);
+    }
+}
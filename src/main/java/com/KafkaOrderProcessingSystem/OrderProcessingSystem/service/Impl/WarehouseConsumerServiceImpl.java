@@ -5,23 +5,52 @@ import com.KafkaOrderProcessingSystem.OrderProcessingSystem.service.WarehouseCon
 import com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils.WarehouseStockUpdate;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.KafkaHeaders;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
 @Service
 @RequiredArgsConstructor
 @Slf4j
+@ConditionalOnProperty(prefix = "app.kafka.consumer", name = "mode", havingValue = "single", matchIfMissing = true)
 public class WarehouseConsumerServiceImpl implements WarehouseConsumerService {
 
     public final WarehouseStockUpdate warehousestockupdate;
 
-    // Kafka listener to consume order messages from the "orders" topic
+    // Kafka listener to consume order messages from the "orders" topic.
+    // The record offset is stored with the stock change, so a redelivered record is not applied twice.
+    // A failing record is retried through the orders-retry-N topics (see KafkaConsumerConfig), not inline.
     @KafkaListener(topics = "orders", groupId = "warehouse-group")
+    public void consumeRecord(ConsumerRecord<String, Order> record) {
+        log.info("order is in progress state and ready for consumer service to update warehouse stock");
+        warehousestockupdate.processRecord(record);
+    }
+
+    // Called for every order that reached orders-dlt, the stock was never decremented for it.
+    // The record stays in the topic and can be sent back with POST /orders/dlt/replay.
+    public void handleDeadLetter(ConsumerRecord<String, Order> record) {
+        Header reason = record.headers().lastHeader(KafkaHeaders.DLT_EXCEPTION_MESSAGE);
+        log.error("order {} moved to {} after all retries: {}",
+                record.value() != null ? record.value().getOrderId() : record.key(), record.topic(),
+                reason != null ? new String(reason.value(), StandardCharsets.UTF_8) : "unknown error");
+    }
+
     @Override
     public void consumeOrder(Order order) {
         log.info("order is in progress state and ready for consumer service to update warehouse stock");
         // Process the received order and update warehouse stock accordingly
         warehousestockupdate.processOrder(order);
     }
+
+    @Override
+    public void consumeOrders(List<Order> orders) {
+        // Single record mode has no batch listener, process the orders one by one
+        orders.forEach(warehousestockupdate::processOrder);
+    }
 }
@@ -0,0 +1,44 @@
+package com.KafkaOrderProcessingSystem.OrderProcessingSystem.service.Impl;
+
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity.Order;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.service.WarehouseConsumerService;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils.WarehouseStockLedger;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils.WarehouseStockUpdate;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(prefix = "app.kafka.consumer", name = "mode", havingValue = "ledger")
+public class WarehouseLedgerConsumerServiceImpl implements WarehouseConsumerService {
+
+    private final WarehouseStockLedger warehouseStockLedger;
+
+    private final WarehouseStockUpdate warehouseStockUpdate;
+
+    // Kafka listener applying orders to the in-memory ledger, Mongo is only written when a flush is due
+    @KafkaListener(topics = "orders", groupId = "warehouse-group", containerFactory = "ledgerKafkaListenerContainerFactory")
+    public void consumeRecord(ConsumerRecord<String, Order> record, Consumer<?, ?> consumer) {
+        warehouseStockLedger.apply(record);
+        warehouseStockLedger.flushIfDue(consumer);
+    }
+
+    @Override
+    public void consumeOrder(Order order) {
+        // Orders that do not come from a partition have no ledger, apply them directly
+        warehouseStockUpdate.processOrder(order);
+    }
+
+    @Override
+    public void consumeOrders(List<Order> orders) {
+        warehouseStockUpdate.processOrders(orders);
+    }
+}
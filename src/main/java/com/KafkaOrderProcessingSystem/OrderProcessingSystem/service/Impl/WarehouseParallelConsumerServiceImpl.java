@@ -0,0 +1,45 @@
+package com.KafkaOrderProcessingSystem.OrderProcessingSystem.service.Impl;
+
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity.Order;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.service.WarehouseConsumerService;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils.OrderLaneDispatcher;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils.WarehouseStockUpdate;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(prefix = "app.kafka.consumer", name = "mode", havingValue = "parallel")
+public class WarehouseParallelConsumerServiceImpl implements WarehouseConsumerService {
+
+    private final OrderLaneDispatcher orderLaneDispatcher;
+
+    private final WarehouseStockUpdate warehouseStockUpdate;
+
+    // Kafka listener handing each poll to the product lanes, the poll thread goes straight back to polling
+    @KafkaListener(topics = "orders", groupId = "warehouse-group", containerFactory = "parallelKafkaListenerContainerFactory")
+    public void consumeRecords(List<ConsumerRecord<String, Order>> records, Consumer<?, ?> consumer) {
+        log.info("dispatching {} records to the product lanes, {} still in flight", records.size(),
+                orderLaneDispatcher.inFlight());
+        orderLaneDispatcher.dispatch(records, consumer);
+    }
+
+    @Override
+    public void consumeOrder(Order order) {
+        // Orders that do not come from a partition have no offset to track, apply them directly
+        warehouseStockUpdate.processOrder(order);
+    }
+
+    @Override
+    public void consumeOrders(List<Order> orders) {
+        warehouseStockUpdate.processOrders(orders);
+    }
+}
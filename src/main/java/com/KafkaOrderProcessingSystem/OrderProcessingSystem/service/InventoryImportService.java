@@ -0,0 +1,18 @@
+package com.KafkaOrderProcessingSystem.OrderProcessingSystem.service;
+
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.dto.InventoryImportDTO;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface InventoryImportService {
+
+    InventoryImportDTO importInventory(InputStream inputStream, Format format) throws IOException;
+
+    enum Format {
+        // productName,availableQuantity per line, an optional header line is skipped
+        CSV,
+        // one WarehouseStockDTO JSON document per line
+        NDJSON
+    }
+}
@@ -1,9 +1,15 @@
 package com.KafkaOrderProcessingSystem.OrderProcessingSystem.service;
 
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.dto.StockAdjustmentDTO;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.dto.StockCursorPageDTO;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.dto.WarehouseStockDTO;
 import com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity.WarehouseStock;
 import org.springframework.data.domain.Page;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.OutputStream;
+
 import java.util.List;
 
 @Service
@@ -13,5 +19,13 @@ public interface InventoryService {
 
     Page<WarehouseStock> getInventory(int page, int size, String sortBy);
 
+    StockCursorPageDTO getInventoryAfter(String cursor, int size, String sortBy);
+
+    void exportInventory(OutputStream outputStream) throws IOException;
+
     WarehouseStock updateInventory(String existingProductName, int additionalQuantity);
+
+    List<WarehouseStockDTO> adjustInventory(List<StockAdjustmentDTO> adjustments);
+
+    List<WarehouseStockDTO> lookupInventory(List<String> productNames);
 }
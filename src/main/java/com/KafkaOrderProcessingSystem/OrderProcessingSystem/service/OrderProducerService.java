@@ -1,9 +1,17 @@
 package com.KafkaOrderProcessingSystem.OrderProcessingSystem.service;
 
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.dto.OrderResponseDTO;
 import com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity.Order;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 public interface OrderProducerService {
 
     void submitOrder(Order order);
 
+    CompletableFuture<Order> submitOrderAsync(Order order);
+
+    List<OrderResponseDTO> submitOrders(List<Order> orders);
+
 }
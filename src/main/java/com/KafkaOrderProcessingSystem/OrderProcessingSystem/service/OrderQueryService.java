@@ -0,0 +1,9 @@
+package com.KafkaOrderProcessingSystem.OrderProcessingSystem.service;
+
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.dto.OrderCursorPageDTO;
+
+public interface OrderQueryService {
+
+    OrderCursorPageDTO findOrders(String status, String productName, String cursor, int size);
+
+}
@@ -1,10 +1,13 @@
 package com.KafkaOrderProcessingSystem.OrderProcessingSystem.service;
 
 import com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity.Order;
-import org.springframework.kafka.annotation.KafkaListener;
+
+import java.util.List;
 
 public interface WarehouseConsumerService {
 
     void consumeOrder(Order order);
 
+    void consumeOrders(List<Order> orders);
+
 }
@@ -0,0 +1,36 @@
+package com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils;
+
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.repository.OrderRepository;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.repository.WarehouseRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+// Creates the indexes of the stock list keyset pages and the GET /orders filters.
+// spring.data.mongodb.auto-index-creation stays off, it would need a reachable MongoDB while the repositories are built.
+// Runs once the application is ready and off the startup thread, so a MongoDB that is not reachable yet only costs
+// a warning and the indexes are created on the next start.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MongoIndexInitializer {
+
+    private final WarehouseRepository warehouseRepository;
+
+    private final OrderRepository orderRepository;
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void createIndexes() {
+        try {
+            warehouseRepository.ensureStockListIndex();
+            orderRepository.ensureOrderListIndexes();
+            log.info("MongoDB indexes of the stock list and order queries are in place");
+        } catch (RuntimeException e) {
+            log.warn("Could not create the MongoDB indexes, stock list and order queries may scan: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils;
+
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.config.OrderProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Time ordered order ids without coordination: 48 bit milliseconds, 10 bit node id and a 16 bit sequence,
+// written as 16 Crockford base32 characters (10 time, 2 node, 4 sequence). The ids sort like their creation time,
+// so new orders land at the right edge of the _id index instead of on random pages.
+// Ids of one node strictly increase: the sequence counts up within a millisecond, and when the clock goes back
+// or the sequence of a millisecond runs out the generator keeps counting from the last id.
+@Slf4j
+@Component
+public class OrderIdGenerator {
+
+    public static final int MAX_NODE_ID = 1023;
+
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    private static final int SEQUENCE_BITS = 16;
+
+    private static final int TIME_CHARS = 10;
+
+    private final int nodeId;
+
+    private final Clock clock;
+
+    // Milliseconds in the high bits and the sequence in the low 16 bits of the last issued id
+    private final AtomicLong last = new AtomicLong();
+
+    @Autowired
+    public OrderIdGenerator(OrderProperties orderProperties) {
+        this(resolveNodeId(orderProperties.getIdGeneration().getNodeId()), Clock.systemUTC());
+    }
+
+    public OrderIdGenerator(int nodeId, Clock clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Order id node id must be between 0 and " + MAX_NODE_ID);
+        }
+        this.nodeId = nodeId;
+        this.clock = clock;
+    }
+
+    public String nextId() {
+        long now = clock.millis() << SEQUENCE_BITS;
+        // Lock free: the first id of a new millisecond starts its sequence at 0, any other id follows the last one
+        long next = last.updateAndGet(previous -> now > previous ? now : previous + 1);
+
+        char[] id = new char[16];
+        encode(next >>> SEQUENCE_BITS, id, 0, TIME_CHARS);
+        encode(nodeId, id, TIME_CHARS, 2);
+        encode(next & ((1L << SEQUENCE_BITS) - 1), id, TIME_CHARS + 2, 4);
+        return new String(id);
+    }
+
+    // Creation time encoded in a generated id, so ids can stand in for a creation time sort key
+    public static Instant timestampOf(String orderId) {
+        long millis = 0;
+        for (int i = 0; i < TIME_CHARS; i++) {
+            millis = (millis << 5) | indexOf(orderId.charAt(i));
+        }
+        return Instant.ofEpochMilli(millis);
+    }
+
+    private static void encode(long value, char[] target, int offset, int length) {
+        for (int i = offset + length - 1; i >= offset; i--) {
+            target[i] = ALPHABET[(int) (value & 31)];
+            value >>>= 5;
+        }
+    }
+
+    private static int indexOf(char c) {
+        for (int i = 0; i < ALPHABET.length; i++) {
+            if (ALPHABET[i] == c) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Not a generated order id character: " + c);
+    }
+
+    // Configured node ids are unique per instance, otherwise one is derived from the host name
+    private static int resolveNodeId(int configured) {
+        if (configured >= 0) {
+            return configured;
+        }
+        int derived;
+        try {
+            derived = Math.floorMod(InetAddress.getLocalHost().getHostName().hashCode(), MAX_NODE_ID + 1);
+        } catch (Exception e) {
+            derived = ThreadLocalRandom.current().nextInt(MAX_NODE_ID + 1);
+        }
+        log.warn("app.orders.id-generation.node-id is not set, using node id {} derived from the host name. "
+                + "Set a distinct node id per instance to rule out collisions", derived);
+        return derived;
+    }
+}
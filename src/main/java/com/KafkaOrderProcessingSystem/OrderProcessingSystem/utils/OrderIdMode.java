@@ -0,0 +1,31 @@
+package com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils;
+
+// Decides whether an incoming order keeps the order id sent by the client or gets one from OrderIdGenerator
+public enum OrderIdMode {
+
+    // The client id is used as is, retries with the same id are recognised as duplicates
+    CLIENT {
+        @Override
+        public boolean generates(String clientOrderId) {
+            return false;
+        }
+    },
+
+    // Orders sent without an id get a generated one, client ids keep working for idempotent retries
+    IF_ABSENT {
+        @Override
+        public boolean generates(String clientOrderId) {
+            return clientOrderId == null || clientOrderId.isBlank();
+        }
+    },
+
+    // Every order gets a generated id, a client retry becomes a new order
+    ALWAYS {
+        @Override
+        public boolean generates(String clientOrderId) {
+            return true;
+        }
+    };
+
+    public abstract boolean generates(String clientOrderId);
+}
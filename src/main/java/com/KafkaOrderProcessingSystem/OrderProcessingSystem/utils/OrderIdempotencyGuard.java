@@ -0,0 +1,166 @@
+package com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils;
+
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.config.OrderProperties;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity.Order;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity.OrderStatus;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.repository.OrderRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Finds orders that were already accepted under the same client supplied id, in three steps:
+// a Bloom filter of ids accepted by this instance (a miss means the id is new to us), a bounded cache of recently
+// accepted orders, and finally the Mongo _id. The filter starts empty on every start, so ids accepted before a
+// restart or by another instance are caught by the unique _id when the order is inserted.
+@Component
+public class OrderIdempotencyGuard {
+
+    private final OrderRepository orderRepository;
+
+    private final BloomFilter acceptedIds;
+
+    private final Cache<String, Order> recentOrders;
+
+    public OrderIdempotencyGuard(OrderRepository orderRepository, OrderProperties orderProperties) {
+        this.orderRepository = orderRepository;
+        OrderProperties.Idempotency idempotency = orderProperties.getIdempotency();
+        this.acceptedIds = new BloomFilter(idempotency.getExpectedInsertions(), idempotency.getFalsePositiveRate());
+        this.recentOrders = Caffeine.newBuilder()
+                .maximumSize(idempotency.getRecentCacheSize())
+                .build();
+    }
+
+    // True when this instance never accepted the id, no lookup is needed then
+    public boolean isDefinitelyNew(String orderId) {
+        return orderId == null || !acceptedIds.mightContain(orderId);
+    }
+
+    // The accepted order with this id, empty when the id is new or the earlier attempt failed
+    public Optional<Order> findAccepted(String orderId) {
+        if (isDefinitelyNew(orderId)) {
+            return Optional.empty();
+        }
+        Order recent = recentOrders.getIfPresent(orderId);
+        if (recent != null) {
+            return Optional.of(recent);
+        }
+        // Fell out of the recent cache or a false positive of the filter, the stored order decides
+        Optional<Order> stored = orderRepository.findById(orderId).filter(OrderIdempotencyGuard::isAccepted);
+        stored.ifPresent(order -> recentOrders.put(orderId, order));
+        return stored;
+    }
+
+    // Batch variant of findAccepted, the ids that need Mongo are read with a single query
+    public Map<String, Order> findAccepted(Collection<String> orderIds) {
+        Map<String, Order> accepted = new HashMap<>();
+        List<String> toLookUp = new ArrayList<>();
+        for (String orderId : orderIds) {
+            if (isDefinitelyNew(orderId)) {
+                continue;
+            }
+            Order recent = recentOrders.getIfPresent(orderId);
+            if (recent != null) {
+                accepted.put(orderId, recent);
+            } else {
+                toLookUp.add(orderId);
+            }
+        }
+        if (!toLookUp.isEmpty()) {
+            orderRepository.findAllById(toLookUp).forEach(order -> {
+                if (isAccepted(order)) {
+                    accepted.put(order.getOrderId(), order);
+                    recentOrders.put(order.getOrderId(), order);
+                }
+            });
+        }
+        return accepted;
+    }
+
+    // Records an order that was accepted and published, failed orders can be retried under the same id
+    public void remember(Order order) {
+        if (order.getOrderId() != null && isAccepted(order)) {
+            acceptedIds.put(order.getOrderId());
+            recentOrders.put(order.getOrderId(), order);
+        }
+    }
+
+    public static boolean isAccepted(Order order) {
+        return !OrderStatus.FAILED.name().equals(order.getStatus());
+    }
+
+    // Lock free Bloom filter over an AtomicLongArray, bits are only ever set
+    static final class BloomFilter {
+
+        private final AtomicLongArray words;
+
+        private final long bitCount;
+
+        private final int hashCount;
+
+        BloomFilter(long expectedInsertions, double falsePositiveRate) {
+            long insertions = Math.max(1, expectedInsertions);
+            // Optimal sizing: m = -n ln p / (ln 2)^2 bits and k = m / n ln 2 hash functions
+            long bits = (long) Math.ceil(-insertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            this.bitCount = Math.max(64, bits);
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / insertions * Math.log(2)));
+            this.words = new AtomicLongArray((int) ((bitCount + 63) / 64));
+        }
+
+        void put(String key) {
+            long hash = hash(key);
+            for (int i = 1; i <= hashCount; i++) {
+                long bit = index(hash, i);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long current;
+                do {
+                    current = words.get(word);
+                    if ((current & mask) != 0) {
+                        break;
+                    }
+                } while (!words.compareAndSet(word, current, current | mask));
+            }
+        }
+
+        boolean mightContain(String key) {
+            long hash = hash(key);
+            for (int i = 1; i <= hashCount; i++) {
+                long bit = index(hash, i);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // Double hashing, the i-th hash is h1 + i * h2
+        private long index(long hash, int i) {
+            long combined = (hash & 0xFFFFFFFFL) + i * (hash >>> 32);
+            return Long.remainderUnsigned(combined, bitCount);
+        }
+
+        // 64 bit FNV-1a over the UTF-8 bytes, finished with the murmur3 mixer to spread both halves
+        private static long hash(String key) {
+            long hash = 0xcbf29ce484222325L;
+            for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+                hash ^= b;
+                hash *= 0x100000001b3L;
+            }
+            hash ^= hash >>> 33;
+            hash *= 0xff51afd7ed558ccdL;
+            hash ^= hash >>> 33;
+            hash *= 0xc4ceb9fe1a85ec53L;
+            hash ^= hash >>> 33;
+            return hash;
+        }
+    }
+}
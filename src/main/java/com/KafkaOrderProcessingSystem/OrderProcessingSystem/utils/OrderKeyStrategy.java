@@ -0,0 +1,25 @@
+package com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils;
+
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity.Order;
+
+// Decides which Kafka record key, and therefore which partition, an order is published with
+public enum OrderKeyStrategy {
+
+    // Spreads the orders of a product over every partition, any consumer may update any product
+    ORDER_ID {
+        @Override
+        public String keyFor(Order order) {
+            return order.getOrderId();
+        }
+    },
+
+    // Routes every order of a product to the same partition, so each product has a single writer
+    PRODUCT_NAME {
+        @Override
+        public String keyFor(Order order) {
+            return order.getProductName();
+        }
+    };
+
+    public abstract String keyFor(Order order);
+}
@@ -0,0 +1,244 @@
+package com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils;
+
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.config.KafkaConsumerProperties;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity.Order;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.event.ListenerContainerIdleEvent;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.kafka.listener.ConsumerRecordRecoverer;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Parallel consumer mode: the poll thread hands every record to one of a fixed number of single threaded lanes,
+// chosen by product name. Orders of one product run one after the other in offset order, different products run
+// in parallel, so a single partition can keep every lane busy.
+// Offsets are committed up to the lowest record still running, never past an unfinished one, and the applied
+// offset stored with the stock skips records that are delivered again after a crash.
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "app.kafka.consumer", name = "mode", havingValue = "parallel")
+public class OrderLaneDispatcher implements ConsumerAwareRebalanceListener {
+
+    private final WarehouseStockUpdate warehouseStockUpdate;
+
+    private final ConsumerRecordRecoverer deadLetterRecoverer;
+
+    private final KafkaConsumerProperties.Parallel parallel;
+
+    private final ExecutorService[] lanes;
+
+    // Progress of every partition assigned to one of the listener containers
+    private final Map<TopicPartition, PartitionProgress> progress = new ConcurrentHashMap<>();
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public OrderLaneDispatcher(WarehouseStockUpdate warehouseStockUpdate, ConsumerRecordRecoverer deadLetterRecoverer,
+                               KafkaConsumerProperties consumerProperties) {
+        this.warehouseStockUpdate = warehouseStockUpdate;
+        this.deadLetterRecoverer = deadLetterRecoverer;
+        this.parallel = consumerProperties.getParallel();
+        this.lanes = new ExecutorService[parallel.getLanes()];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = Executors.newSingleThreadExecutor(Thread.ofPlatform().name("order-lane-" + i).factory());
+        }
+    }
+
+    // Called on the poll thread with one poll of records, returns as soon as they are queued on their lanes
+    public void dispatch(List<ConsumerRecord<String, Order>> records, Consumer<?, ?> consumer) {
+        for (ConsumerRecord<String, Order> record : records) {
+            PartitionProgress partition = progress.computeIfAbsent(
+                    new TopicPartition(record.topic(), record.partition()), key -> new PartitionProgress());
+            partition.dispatched(record.offset());
+            inFlight.incrementAndGet();
+            laneFor(record).execute(() -> process(record, partition));
+        }
+        commitIfDue(consumer);
+        applyBackpressure(consumer);
+    }
+
+    // Commits every partition of this consumer whose commit interval has elapsed
+    public void commitIfDue(Consumer<?, ?> consumer) {
+        long now = System.currentTimeMillis();
+        long interval = parallel.getCommitInterval().toMillis();
+        commit(consumer, consumer.assignment().stream()
+                .filter(partition -> {
+                    PartitionProgress partitionProgress = progress.get(partition);
+                    return partitionProgress != null && now - partitionProgress.lastCommit >= interval;
+                })
+                .toList());
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    // Paused consumers still get idle events, which commit what the lanes finished and resume fetching
+    @EventListener
+    public void onIdle(ListenerContainerIdleEvent event) {
+        if (event.getConsumer() != null) {
+            commitIfDue(event.getConsumer());
+            applyBackpressure(event.getConsumer());
+        }
+    }
+
+    @Override
+    public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        // Let the lanes finish what was dispatched, so the new owner starts right after the last finished record
+        awaitLanes();
+        commit(consumer, partitions);
+        partitions.forEach(progress::remove);
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        // Offsets can no longer be committed, the new owner replays the unfinished records
+        partitions.forEach(progress::remove);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        for (ExecutorService lane : lanes) {
+            lane.shutdown();
+        }
+        for (ExecutorService lane : lanes) {
+            lane.awaitTermination(parallel.getDrainTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void process(ConsumerRecord<String, Order> record, PartitionProgress partition) {
+        try {
+            warehouseStockUpdate.processRecord(record);
+        } catch (RuntimeException e) {
+            // Moved aside so the product's later orders and the committed offset do not wait for it
+            log.error("order at {}-{}@{} failed, moving it to the dead letter topic: {}",
+                    record.topic(), record.partition(), record.offset(), e.getMessage(), e);
+            try {
+                deadLetterRecoverer.accept(record, e);
+            } catch (RuntimeException recoveryFailure) {
+                log.error("order at {}-{}@{} could not be dead lettered and is skipped: {}", record.topic(),
+                        record.partition(), record.offset(), recoveryFailure.getMessage(), recoveryFailure);
+            }
+        } finally {
+            partition.completed(record.offset());
+            inFlight.decrementAndGet();
+        }
+    }
+
+    // Lane index of a product name (or record key), every record with the same key runs on this lane
+    public int laneOf(String key) {
+        return key == null ? 0 : Math.floorMod(key.hashCode(), lanes.length);
+    }
+
+    private ExecutorService laneFor(ConsumerRecord<String, Order> record) {
+        String key = record.value() != null && record.value().getProductName() != null
+                ? record.value().getProductName()
+                : record.key();
+        return lanes[laneOf(key)];
+    }
+
+    private void applyBackpressure(Consumer<?, ?> consumer) {
+        if (inFlight.get() >= parallel.getMaxInFlight()) {
+            consumer.pause(consumer.assignment());
+        } else if (!consumer.paused().isEmpty()) {
+            consumer.resume(consumer.paused());
+        }
+    }
+
+    private void commit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        for (TopicPartition partition : partitions) {
+            PartitionProgress partitionProgress = progress.get(partition);
+            if (partitionProgress == null) {
+                continue;
+            }
+            long committable = partitionProgress.committable();
+            if (committable > partitionProgress.committed) {
+                offsets.put(partition, new OffsetAndMetadata(committable));
+            }
+        }
+
+        if (!offsets.isEmpty()) {
+            consumer.commitSync(offsets);
+        }
+        long now = System.currentTimeMillis();
+        for (TopicPartition partition : partitions) {
+            PartitionProgress partitionProgress = progress.get(partition);
+            if (partitionProgress == null) {
+                continue;
+            }
+            OffsetAndMetadata committed = offsets.get(partition);
+            if (committed != null) {
+                partitionProgress.committed = committed.offset();
+            }
+            partitionProgress.lastCommit = now;
+        }
+    }
+
+    // A lane runs its tasks in order, so once a marker task ran on every lane all earlier records are finished
+    private void awaitLanes() {
+        CompletableFuture<?>[] markers = Arrays.stream(lanes)
+                .map(lane -> CompletableFuture.runAsync(() -> { }, lane))
+                .toArray(CompletableFuture[]::new);
+        try {
+            CompletableFuture.allOf(markers).get(parallel.getDrainTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("lanes did not finish within {}, committing what is done: {}",
+                    parallel.getDrainTimeout(), e.getMessage());
+        }
+    }
+
+    // Offsets of one partition: dispatched is only called from the poll thread, completed from the lanes
+    private static class PartitionProgress {
+
+        // Records handed to a lane that have not finished yet
+        private final ConcurrentSkipListSet<Long> running = new ConcurrentSkipListSet<>();
+
+        // Offset after the last dispatched record, -1 until a record was dispatched
+        private volatile long nextOffset = -1;
+
+        // Last committed offset, starts at the first dispatched record
+        private long committed = -1;
+
+        private long lastCommit = System.currentTimeMillis();
+
+        private void dispatched(long offset) {
+            if (committed < 0) {
+                committed = offset;
+            }
+            running.add(offset);
+            nextOffset = offset + 1;
+        }
+
+        private void completed(long offset) {
+            running.remove(offset);
+        }
+
+        // Every record below this offset has finished
+        private long committable() {
+            long next = nextOffset;
+            Long lowestRunning = running.ceiling(Long.MIN_VALUE);
+            return lowestRunning != null ? lowestRunning : next;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils;
+
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.config.KafkaProducerProperties;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.config.OrderProperties;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity.Order;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.repository.OrderRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+// Drains the order outbox to Kafka in the background (outbox mode).
+// Each run reads the oldest marked orders, hands the whole batch to the producer so it can fill large batches,
+// waits for the acknowledgements and clears the marker of the acknowledged orders in one update.
+// Orders whose send failed keep their marker and are sent again on a later run, so delivery is at least once.
+// Runs on every instance, meant for a single producer instance like the stock reservations.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "app.orders.outbox", name = "enabled", havingValue = "true")
+public class OrderOutboxRelay {
+
+    private final KafkaTemplate<String, Order> kafkaTemplate;
+
+    private final OrderRepository orderRepository;
+
+    private final KafkaProducerProperties producerProperties;
+
+    private final OrderProperties orderProperties;
+
+    // Without the sparse index every relay run would scan the whole orders collection
+    @PostConstruct
+    public void createOutboxIndex() {
+        orderRepository.ensureOutboxIndex();
+    }
+
+    // Keeps relaying while full batches come back, then waits for the poll interval
+    @Scheduled(fixedDelayString = "${app.orders.outbox.poll-interval:500ms}")
+    public void relay() {
+        try {
+            boolean more;
+            do {
+                more = relayBatch();
+            } while (more);
+        } catch (RuntimeException e) {
+            log.error("Order outbox relay failed, retrying on the next run: {}", e.getMessage(), e);
+        }
+    }
+
+    // Relays one batch, returns true when the batch was full and fully acknowledged so more orders may be waiting
+    public boolean relayBatch() {
+        int batchSize = orderProperties.getOutbox().getBatchSize();
+        List<Order> batch = orderRepository.findOutboxBatch(batchSize);
+        if (batch.isEmpty()) {
+            return false;
+        }
+
+        // Pipeline every send before waiting on any acknowledgement
+        List<CompletableFuture<SendResult<String, Order>>> sends = new ArrayList<>(batch.size());
+        for (Order order : batch) {
+            try {
+                String key = producerProperties.getKeyStrategy().keyFor(order);
+                sends.add(kafkaTemplate.send(OrderPublisher.TOPIC, key, order));
+            } catch (RuntimeException e) {
+                sends.add(CompletableFuture.failedFuture(e));
+            }
+        }
+
+        List<String> acknowledged = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            try {
+                sends.get(i).join();
+                acknowledged.add(batch.get(i).getOrderId());
+            } catch (RuntimeException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                log.warn("Order {} could not be relayed to Kafka, kept in the outbox: {}",
+                        batch.get(i).getOrderId(), cause.getMessage());
+            }
+        }
+        orderRepository.clearOutbox(acknowledged);
+
+        log.info("Relayed {} of {} outbox orders to Kafka", acknowledged.size(), batch.size());
+        return batch.size() == batchSize && acknowledged.size() == batch.size();
+    }
+}
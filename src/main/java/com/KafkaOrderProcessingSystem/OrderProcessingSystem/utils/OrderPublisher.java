@@ -0,0 +1,158 @@
+package com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils;
+
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.config.KafkaProducerProperties;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity.Order;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity.OrderStatus;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.exception.OrderProcessingException;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.repository.OrderRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// Single entry point for publishing orders to Kafka. At most publish-window.max-in-flight sends are outstanding,
+// a publish beyond that waits for an acknowledgement to free a slot (and fails after acquire-timeout), so a slow
+// broker shows up as bounded waiting instead of request threads piling up on a full producer buffer.
+// Every send is tracked until it is acknowledged: a failed order is marked FAILED and its reservation released,
+// an acknowledged one is remembered for idempotency.
+@Slf4j
+@Component
+public class OrderPublisher {
+
+    public static final String TOPIC = "orders";  // Kafka topic name
+
+    private final KafkaTemplate<String, Order> kafkaTemplate;
+
+    private final OrderRepository orderRepository;
+
+    private final StockReservations stockReservations;
+
+    private final OrderIdempotencyGuard idempotencyGuard;
+
+    private final KafkaProducerProperties.PublishWindow publishWindow;
+
+    private final Semaphore window;
+
+    // Runs the acknowledgement callbacks, the producer I/O thread must not wait for Mongo
+    private final ExecutorService callbackExecutor;
+
+    private final Timer ackedTimer;
+
+    private final Timer failedTimer;
+
+    private final Counter rejectedCounter;
+
+    public OrderPublisher(KafkaTemplate<String, Order> kafkaTemplate, OrderRepository orderRepository,
+                          StockReservations stockReservations, OrderIdempotencyGuard idempotencyGuard,
+                          KafkaProducerProperties producerProperties, MeterRegistry meterRegistry) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.orderRepository = orderRepository;
+        this.stockReservations = stockReservations;
+        this.idempotencyGuard = idempotencyGuard;
+        this.publishWindow = producerProperties.getPublishWindow();
+        this.window = new Semaphore(publishWindow.getMaxInFlight());
+        this.callbackExecutor = Executors.newFixedThreadPool(publishWindow.getCallbackThreads(),
+                Thread.ofPlatform().name("order-publish-callback-", 0).factory());
+
+        Gauge.builder("orders.publish.in_flight", this, OrderPublisher::inFlight)
+                .description("Order sends waiting for a Kafka acknowledgement")
+                .register(meterRegistry);
+        this.ackedTimer = ackTimer(meterRegistry, "acked");
+        this.failedTimer = ackTimer(meterRegistry, "failed");
+        this.rejectedCounter = Counter.builder("orders.publish.rejected")
+                .description("Orders rejected because the in-flight window stayed full")
+                .register(meterRegistry);
+    }
+
+    // Sends the order and returns a future completed with the order once Kafka acknowledged it.
+    // Throws when no slot frees up in time or the send fails synchronously, the order is marked FAILED in both cases.
+    public CompletableFuture<Order> publish(String key, Order order) {
+        acquireSlot(order);
+
+        long start = System.nanoTime();
+        CompletableFuture<Order> acknowledged = new CompletableFuture<>();
+        try {
+            kafkaTemplate.send(TOPIC, key, order)
+                    .whenComplete((result, ex) -> {
+                        // Only cheap bookkeeping on the producer I/O thread, the slot frees up as soon as Kafka answered
+                        window.release();
+                        (ex == null ? ackedTimer : failedTimer).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    })
+                    .whenCompleteAsync((result, ex) -> {
+                        if (ex != null) {
+                            Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                            markFailed(order, cause);
+                            acknowledged.completeExceptionally(new OrderProcessingException(cause.getMessage(), cause));
+                        } else {
+                            idempotencyGuard.remember(order);
+                            acknowledged.complete(order);
+                        }
+                    }, callbackExecutor);
+        } catch (RuntimeException e) {
+            window.release();
+            markFailed(order, e);
+            throw e;
+        }
+        return acknowledged;
+    }
+
+    public int inFlight() {
+        return publishWindow.getMaxInFlight() - window.availablePermits();
+    }
+
+    // Lets the callbacks of acknowledgements that already arrived finish, e.g. the FAILED status writes
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        callbackExecutor.shutdown();
+        callbackExecutor.awaitTermination(publishWindow.getAcquireTimeout().toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void acquireSlot(Order order) {
+        boolean acquired;
+        try {
+            acquired = window.tryAcquire(publishWindow.getAcquireTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            rejectedCounter.increment();
+            RuntimeException rejected = new RuntimeException(
+                    "Too many orders waiting for Kafka acknowledgement, try again later");
+            markFailed(order, rejected);
+            throw rejected;
+        }
+    }
+
+    // The order was saved as PROCESSED before publishing, record that it never reached Kafka so a retry can go through
+    private void markFailed(Order order, Throwable cause) {
+        log.error("Order {} could not be published to Kafka: {}", order.getOrderId(), cause.getMessage(), cause);
+        if (stockReservations.isEnabled()) {
+            stockReservations.release(order.getProductName(), order.getQuantity());
+        }
+        order.setStatus(OrderStatus.FAILED.name());
+        try {
+            orderRepository.save(order);
+        } catch (RuntimeException e) {
+            log.error("Order {} could not be marked FAILED: {}", order.getOrderId(), e.getMessage(), e);
+        }
+    }
+
+    private static Timer ackTimer(MeterRegistry meterRegistry, String result) {
+        return Timer.builder("orders.publish.ack.latency")
+                .description("Time from handing an order to the producer until Kafka acknowledged or failed it")
+                .tag("result", result)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+}
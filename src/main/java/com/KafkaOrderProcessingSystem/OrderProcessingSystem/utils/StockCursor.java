@@ -0,0 +1,33 @@
+package com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Set;
+
+// Position of a keyset page of the stock list: the sort key and the values of the last product returned.
+// Handed to clients as an opaque url safe token, the product name comes last so it may contain the separator.
+public record StockCursor(String sortBy, int availableQuantity, String productName) {
+
+    // Sort keys backed by an index, so seeking past the cursor never scans the skipped products
+    public static final Set<String> SORT_KEYS = Set.of("productName", "availableQuantity");
+
+    private static final String SEPARATOR = ":";
+
+    public String encode() {
+        String raw = sortBy + SEPARATOR + availableQuantity + SEPARATOR + productName;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static StockCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(SEPARATOR, 3);
+            if (parts.length != 3 || !SORT_KEYS.contains(parts[0])) {
+                throw new IllegalArgumentException("unexpected cursor content");
+            }
+            return new StockCursor(parts[0], Integer.parseInt(parts[1]), parts[2]);
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Invalid cursor: " + token);
+        }
+    }
+}
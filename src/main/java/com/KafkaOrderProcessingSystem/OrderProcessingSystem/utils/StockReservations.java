@@ -0,0 +1,95 @@
+package com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils;
+
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.config.OrderProperties;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity.WarehouseStock;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.repository.WarehouseRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Producer side stock reservations: one CAS counter per product, seeded from warehouse_stock on first use.
+// A counter holds the stock minus what was admitted since it was seeded, so the consumer decrement that follows
+// an admitted order is already accounted for. Restocks are added through adjust().
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StockReservations {
+
+    private final WarehouseRepository warehouseRepository;
+
+    private final OrderProperties orderProperties;
+
+    private final Map<String, AtomicInteger> counters = new ConcurrentHashMap<>();
+
+    // Outcome of a reservation attempt, with the quantity that was available when it was attempted
+    public record Reservation(boolean reserved, int available) {
+    }
+
+    public boolean isEnabled() {
+        return orderProperties.getStockReservation().isEnabled();
+    }
+
+    // Atomically takes the quantity from the product counter, only if enough stock is left
+    public Reservation tryReserve(String productName, int quantity) {
+        AtomicInteger counter = counterFor(productName);
+        while (true) {
+            int available = counter.get();
+            if (available <= 0 || quantity > available) {
+                return new Reservation(false, available);
+            }
+            if (counter.compareAndSet(available, available - quantity)) {
+                return new Reservation(true, available);
+            }
+        }
+    }
+
+    // Gives back a reservation whose order was never published
+    public void release(String productName, int quantity) {
+        adjust(productName, quantity);
+    }
+
+    // Applies a stock change made outside the order flow (restock, manual correction) to a tracked counter
+    public void adjust(String productName, int delta) {
+        if (productName != null) {
+            counters.computeIfPresent(productName, (name, counter) -> {
+                counter.addAndGet(delta);
+                return counter;
+            });
+        }
+    }
+
+    // Seeds a counter from stock read elsewhere, e.g. by a batch lookup, keeping the existing counter if any
+    public void seed(WarehouseStock stock) {
+        counters.putIfAbsent(stock.getProductName(), new AtomicInteger(stock.getAvailableQuantity()));
+    }
+
+    public boolean isTracked(String productName) {
+        return productName != null && counters.containsKey(productName);
+    }
+
+    private AtomicInteger counterFor(String productName) {
+        if (productName == null) {
+            throw new RuntimeException("Product not found");
+        }
+        AtomicInteger counter = counters.get(productName);
+        if (counter != null) {
+            return counter;
+        }
+        // Read outside computeIfAbsent: the bin lock would be held across the Mongo round trip, blocking other
+        // products in the same bin and pinning a virtual thread. Concurrent first orders may both read, the
+        // first counter stored wins
+        WarehouseStock stock = warehouseRepository.findById(productName)
+                .orElseThrow(() -> new RuntimeException("Product not found"));
+        AtomicInteger seeded = new AtomicInteger(stock.getAvailableQuantity());
+        AtomicInteger existing = counters.putIfAbsent(productName, seeded);
+        if (existing != null) {
+            return existing;
+        }
+        log.info("seeded stock reservation counter for {} with {}", productName, stock.getAvailableQuantity());
+        return seeded;
+    }
+}
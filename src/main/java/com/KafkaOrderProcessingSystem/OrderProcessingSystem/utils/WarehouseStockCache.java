@@ -0,0 +1,56 @@
+package com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils;
+
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity.WarehouseStock;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+
+// Programmatic access to the warehouseStock cache for writes that bypass the annotated repository methods,
+// e.g. the atomic updates of WarehouseRepositoryCustomImpl.
+// Cached stock (also what findById returns) is shared by every reader, never change it in place: write to Mongo and
+// put the document Mongo returns, or evict.
+@Component
+@RequiredArgsConstructor
+public class WarehouseStockCache {
+
+    public static final String CACHE_NAME = "warehouseStock";
+
+    private final CacheManager cacheManager;
+
+    // Cached stock of a product, null when it is not cached
+    public WarehouseStock get(String productName) {
+        Cache cache = cache();
+        return cache != null ? cache.get(productName, WarehouseStock.class) : null;
+    }
+
+    // Replaces the cached entry with a fresh copy returned by Mongo
+    public void put(WarehouseStock stock) {
+        Cache cache = cache();
+        if (cache != null && stock != null) {
+            cache.put(stock.getProductName(), stock);
+        }
+    }
+
+    // Drops entries whose new value is not known, the next read goes to Mongo
+    public void evict(Collection<String> productNames) {
+        Cache cache = cache();
+        if (cache != null) {
+            productNames.forEach(cache::evict);
+        }
+    }
+
+    public void evict(String productName) {
+        Cache cache = cache();
+        if (cache != null) {
+            cache.evict(productName);
+        }
+    }
+
+    private Cache cache() {
+        // Null when caching is disabled (spring.cache.type=none)
+        return cacheManager.getCache(CACHE_NAME);
+    }
+}
@@ -0,0 +1,288 @@
+package com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils;
+
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.config.KafkaConsumerProperties;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity.Order;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity.WarehouseStock;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.repository.WarehouseRepository;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.repository.WarehouseRepositoryCustom.OffsetDecrement;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.event.ListenerContainerIdleEvent;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+// In-memory stock per partition for the ledger consumer mode.
+// With orders keyed by product name each product belongs to one partition, so its consumer thread is the only order
+// writer (KafkaConsumerConfig refuses the ledger mode with any other key strategy).
+// Decrements are applied in memory and flushed to Mongo as $inc deltas every interval, each together with the last offset
+// it covers (WarehouseStock.appliedOffsets), just before the offsets are committed to Kafka.
+// Products are loaded on first use (a partition's products are only known once their orders arrive) and kept until the
+// partition is revoked. The inventory API still writes the same documents, so a product is read again when its orders
+// no longer fit (at most once per flush interval, picking up restocks), and a flush that no longer fits the stored
+// quantity is replayed order by order on the current stock.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "app.kafka.consumer", name = "mode", havingValue = "ledger")
+public class WarehouseStockLedger implements ConsumerAwareRebalanceListener {
+
+    private final WarehouseRepository warehouseRepository;
+
+    private final KafkaConsumerProperties consumerProperties;
+
+    // One ledger per assigned partition, each only touched by the consumer thread that owns the partition
+    private final Map<TopicPartition, PartitionLedger> ledgers = new ConcurrentHashMap<>();
+
+    // Applies one record to the ledger of its partition, returns false when there was not enough stock
+    // or the record was already flushed before
+    public boolean apply(ConsumerRecord<String, Order> record) {
+        Order order = record.value();
+        PartitionLedger ledger = ledgers.computeIfAbsent(
+                new TopicPartition(record.topic(), record.partition()), partition -> new PartitionLedger());
+
+        String partitionKey = WarehouseStockUpdate.partitionKey(record);
+        // Loaded before it is stored, no map operation spans the Mongo read
+        StockEntry entry = ledger.entries.get(order.getProductName());
+        if (entry == null) {
+            entry = loadEntry(order.getProductName(), partitionKey);
+            ledger.entries.put(order.getProductName(), entry);
+        }
+        ledger.nextOffset = record.offset() + 1;
+
+        // Flushed before a crash or rebalance, but the offset commit did not make it
+        if (record.offset() <= entry.appliedOffset) {
+            log.info("order {} at offset {} was already applied, skipping the replay", order.getOrderId(), record.offset());
+            return false;
+        }
+        if (entry.available < order.getQuantity() && canReload(entry)) {
+            reload(entry, order.getProductName(), partitionKey);
+        }
+        if (entry.available < order.getQuantity()) {
+            log.warn("Insufficient stock for order {}, warehouse stock of {} left unchanged",
+                    order.getOrderId(), order.getProductName());
+            return false;
+        }
+        entry.available -= order.getQuantity();
+        entry.pendingDecrement += order.getQuantity();
+        entry.pendingOrders.add(new PendingOrder(order.getOrderId(), order.getQuantity()));
+        if (entry.firstPendingOffset < 0) {
+            entry.firstPendingOffset = record.offset();
+        }
+        entry.lastPendingOffset = record.offset();
+        return true;
+    }
+
+    // Flushes every partition of this consumer whose flush interval has elapsed
+    public void flushIfDue(Consumer<?, ?> consumer) {
+        long now = System.currentTimeMillis();
+        long interval = consumerProperties.getLedger().getFlushInterval().toMillis();
+        flush(consumer, consumer.assignment().stream()
+                .filter(partition -> {
+                    PartitionLedger ledger = ledgers.get(partition);
+                    return ledger != null && now - ledger.lastFlush >= interval;
+                })
+                .toList());
+    }
+
+    // Writes the pending stock changes of the given partitions to Mongo, then commits their offsets
+    public void flush(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        List<OffsetDecrement> decrements = new ArrayList<>();
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        Map<String, PartitionLedger> flushed = new HashMap<>();
+
+        for (TopicPartition partition : partitions) {
+            PartitionLedger ledger = ledgers.get(partition);
+            if (ledger == null || ledger.nextOffset < 0) {
+                continue;
+            }
+            String partitionKey = partition.topic() + "-" + partition.partition();
+            ledger.entries.forEach((productName, entry) -> {
+                if (entry.pendingDecrement > 0) {
+                    decrements.add(new OffsetDecrement(productName, entry.pendingDecrement, partitionKey,
+                            entry.firstPendingOffset, entry.lastPendingOffset));
+                }
+            });
+            offsets.put(partition, new OffsetAndMetadata(ledger.nextOffset));
+            flushed.put(partitionKey, ledger);
+        }
+        if (offsets.isEmpty()) {
+            return;
+        }
+
+        // The applied offsets are written with the stock, so records replayed after a crash before the commit
+        // are recognised when their products are loaded again and are not decremented twice.
+        // Each update only applies while the stock still covers it, the ones another writer got in between are
+        // replayed on the current stock before the offsets are committed.
+        List<OffsetDecrement> missed = warehouseRepository.decrementStocksAtOffsets(decrements);
+        for (OffsetDecrement decrement : missed) {
+            reconcile(flushed.get(decrement.partition()).entries.get(decrement.productName()), decrement);
+        }
+        consumer.commitSync(offsets);
+
+        long now = System.currentTimeMillis();
+        for (TopicPartition partition : offsets.keySet()) {
+            PartitionLedger ledger = ledgers.get(partition);
+            ledger.entries.values().forEach(entry -> {
+                if (entry.pendingDecrement > 0) {
+                    entry.appliedOffset = entry.lastPendingOffset;
+                    entry.clearPending();
+                }
+            });
+            ledger.nextOffset = -1;
+            ledger.lastFlush = now;
+        }
+        log.info("warehouse stock ledger flushed {} products for partitions {}", decrements.size(), offsets.keySet());
+    }
+
+    // Idle containers still flush, so the last orders before a quiet period do not wait for the next record
+    @EventListener
+    public void onIdle(ListenerContainerIdleEvent event) {
+        if (event.getConsumer() != null) {
+            flushIfDue(event.getConsumer());
+        }
+    }
+
+    @Override
+    public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        // Hand the partitions over cleanly: flush what was applied, then forget it
+        flush(consumer, partitions);
+        partitions.forEach(ledgers::remove);
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        // Offsets can no longer be committed, the new owner replays the unflushed records
+        partitions.forEach(ledgers::remove);
+    }
+
+    private StockEntry loadEntry(String productName, String partitionKey) {
+        WarehouseStock stock = readStock(productName)
+                .orElseThrow(() -> new RuntimeException("Product not found: " + productName));
+        StockEntry entry = new StockEntry();
+        entry.available = stock.getAvailableQuantity();
+        entry.appliedOffset = appliedOffset(stock, partitionKey);
+        entry.lastReload = System.currentTimeMillis();
+        return entry;
+    }
+
+    private boolean canReload(StockEntry entry) {
+        return System.currentTimeMillis() - entry.lastReload >= consumerProperties.getLedger().getFlushInterval().toMillis();
+    }
+
+    // Reads the stored quantity again, the orders applied since the last flush are not in it yet
+    private void reload(StockEntry entry, String productName, String partitionKey) {
+        entry.lastReload = System.currentTimeMillis();
+        readStock(productName).ifPresent(stock -> {
+            if (appliedOffset(stock, partitionKey) == entry.appliedOffset) {
+                entry.available = stock.getAvailableQuantity() - entry.pendingDecrement;
+            }
+        });
+    }
+
+    // The flushed decrement no longer fits the stored quantity: replays the pending orders in offset order on the
+    // current stock, takes the ones that still fit and stores the offsets, retrying while the stock keeps changing
+    private void reconcile(StockEntry entry, OffsetDecrement missed) {
+        String productName = missed.productName();
+        while (true) {
+            Optional<WarehouseStock> current = readStock(productName);
+            if (current.isEmpty()) {
+                log.warn("{} was removed, {} pending orders were dropped", productName, entry.pendingOrders.size());
+                entry.available = 0;
+                break;
+            }
+            WarehouseStock stock = current.get();
+            long appliedOffset = appliedOffset(stock, missed.partition());
+            if (appliedOffset >= missed.lastOffset()) {
+                entry.available = stock.getAvailableQuantity();
+                break;
+            }
+
+            int available = stock.getAvailableQuantity();
+            int taken = 0;
+            List<String> refused = new ArrayList<>();
+            for (PendingOrder pending : entry.pendingOrders) {
+                if (available - taken >= pending.quantity()) {
+                    taken += pending.quantity();
+                } else {
+                    refused.add(pending.orderId());
+                }
+            }
+            OffsetDecrement decrement = new OffsetDecrement(productName, taken, missed.partition(),
+                    missed.firstOffset(), missed.lastOffset());
+            if (warehouseRepository.decrementStockIfUnchanged(productName, available, List.of(decrement)).isPresent()) {
+                if (!refused.isEmpty()) {
+                    log.warn("Insufficient stock of {} at flush, orders {} left the warehouse stock unchanged",
+                            productName, refused);
+                }
+                entry.available = available - taken;
+                break;
+            }
+        }
+        entry.appliedOffset = missed.lastOffset();
+        entry.clearPending();
+    }
+
+    // Read around the stock cache, the ledger must see what other writers stored
+    private Optional<WarehouseStock> readStock(String productName) {
+        return warehouseRepository.findAllById(List.of(productName)).stream().findFirst();
+    }
+
+    private static long appliedOffset(WarehouseStock stock, String partitionKey) {
+        Map<String, Long> appliedOffsets = stock.getAppliedOffsets();
+        return appliedOffsets != null && appliedOffsets.containsKey(partitionKey) ? appliedOffsets.get(partitionKey) : -1;
+    }
+
+    private static class PartitionLedger {
+
+        private final Map<String, StockEntry> entries = new HashMap<>();
+
+        // Offset to commit once the ledger is flushed, -1 until a record has been applied
+        private long nextOffset = -1;
+
+        private long lastFlush = System.currentTimeMillis();
+    }
+
+    private static class StockEntry {
+
+        private int available;
+
+        private int pendingDecrement;
+
+        // Orders in pendingDecrement in offset order, replayed when the flushed delta no longer fits
+        private final List<PendingOrder> pendingOrders = new ArrayList<>();
+
+        private long lastReload;
+
+        // Last offset of the partition already written to Mongo for this product, -1 when none
+        private long appliedOffset = -1;
+
+        // Offsets of the first and last record in pendingDecrement, -1 while nothing is pending
+        private long firstPendingOffset = -1;
+
+        private long lastPendingOffset = -1;
+
+        private void clearPending() {
+            pendingDecrement = 0;
+            pendingOrders.clear();
+            firstPendingOffset = -1;
+            lastPendingOffset = -1;
+        }
+    }
+
+    private record PendingOrder(String orderId, int quantity) {
+    }
+}
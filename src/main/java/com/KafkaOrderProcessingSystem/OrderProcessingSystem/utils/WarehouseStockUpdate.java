@@ -3,12 +3,22 @@ package com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils;
 import com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity.Order;
 import com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity.WarehouseStock;
 import com.KafkaOrderProcessingSystem.OrderProcessingSystem.repository.WarehouseRepository;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.repository.WarehouseRepositoryCustom.OffsetDecrement;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.repository.WarehouseRepositoryCustom.StockDecrement;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Component
@@ -17,24 +27,216 @@ public class WarehouseStockUpdate {
 
     private final WarehouseRepository warehouseRepository;
 
-    // Method to process the received order and update warehouse stock accordingly
-    public void processOrder(Order order) {
+    // Method to process the received order and update warehouse stock accordingly.
+    // Returns true when the stock was decremented, false when there was not enough stock left.
+    public boolean processOrder(Order order) {
 
         // Log that the consumer has received an order from Kafka
         log.info("kafka consumer received order: " + order);
 
-        // Fetch product stock safely
-        WarehouseStock stock = warehouseRepository.findById(order.getProductName())
-                .orElseThrow(() -> new RuntimeException(
-                        "Product not found: " + order.getProductName()
-                ));
+        // Decrement the stock atomically, only if enough quantity remains (no prior read needed)
+        Optional<WarehouseStock> updated = warehouseRepository.decrementStockIfAvailable(
+                order.getProductName(), order.getQuantity());
+        if (updated.isPresent()) {
+            log.info("warehouse has been updated with with " + updated.get());
+            return true;
+        }
 
-        // Calculate the remaining stock after fulfilling the order
-        int remaining = stock.getAvailableQuantity() - order.getQuantity();
-        stock.setAvailableQuantity(remaining);
+        // Only a rejected update pays a second round trip, to tell a missing product from a shortage
+        if (!warehouseRepository.existsById(order.getProductName())) {
+            throw new RuntimeException("Product not found: " + order.getProductName());
+        }
+        log.warn("Insufficient stock for order {}, warehouse stock of {} left unchanged",
+                order.getOrderId(), order.getProductName());
+        return false;
+    }
+
+    // Method to process a whole poll of orders: the orders of each product are applied in the order they were
+    // received, each only while enough stock remains for it. The stocks are read once and every product is written
+    // in one unordered bulk write, products changed meanwhile fall back to their own atomic update.
+    // Returns the orders that were not applied, because their product is missing or its stock ran out.
+    public List<Order> processOrders(List<Order> orders) {
+
+        log.info("kafka consumer received batch of {} orders", orders.size());
+
+        // Group the batch so a popular product costs one update, however many orders it received
+        Map<String, List<Order>> ordersByProduct = orders.stream()
+                .filter(order -> order.getProductName() != null)
+                .collect(Collectors.groupingBy(Order::getProductName, LinkedHashMap::new, Collectors.toList()));
+        Map<String, WarehouseStock> stocks = new HashMap<>();
+        warehouseRepository.findAllById(ordersByProduct.keySet())
+                .forEach(stock -> stocks.put(stock.getProductName(), stock));
+
+        // Fold the orders of each product on the stock read, a compare and set on that quantity applies the result
+        List<Order> rejected = new ArrayList<>();
+        Map<String, List<Order>> rejectedByProduct = new HashMap<>();
+        List<StockDecrement> decrements = new ArrayList<>();
+        ordersByProduct.forEach((productName, productOrders) -> {
+            WarehouseStock stock = stocks.get(productName);
+            if (stock == null) {
+                log.warn("Product not found: {}, its {} orders in the batch were skipped", productName, productOrders.size());
+                rejected.addAll(productOrders);
+                return;
+            }
+            List<Order> shortages = takeInOrder(stock.getAvailableQuantity(), productOrders);
+            int taken = productOrders.stream().mapToInt(Order::getQuantity).sum()
+                    - shortages.stream().mapToInt(Order::getQuantity).sum();
+            if (taken > 0) {
+                decrements.add(new StockDecrement(productName, stock.getAvailableQuantity(), taken));
+            }
+            rejectedByProduct.put(productName, shortages);
+        });
+        Set<String> changed = warehouseRepository.decrementStocksIfUnchanged(decrements);
+
+        rejectedByProduct.forEach((productName, shortages) -> {
+            if (changed.contains(productName)) {
+                // Someone else changed the stock since it was read, apply the orders in one atomic $reduce update
+                shortages = decrementInOrder(productName, ordersByProduct.get(productName));
+            }
+            shortages.forEach(order -> log.warn("Insufficient stock for order {}, warehouse stock of {} left unchanged",
+                    order.getOrderId(), productName));
+            rejected.addAll(shortages);
+        });
+        log.info("warehouse has been updated for {} products from {} orders, {} orders were rejected",
+                ordersByProduct.size(), orders.size(), rejected.size());
+        return rejected;
+    }
+
+    // Applies the orders of one product in a single atomic update, each only while enough stock remains for it.
+    // Returns the orders it did not take, all of them when the product is gone.
+    private List<Order> decrementInOrder(String productName, List<Order> productOrders) {
+        Optional<WarehouseStock> previous = warehouseRepository.decrementStockInOrder(productName,
+                productOrders.stream().map(Order::getQuantity).toList());
+        if (previous.isEmpty()) {
+            log.warn("Product not found: {}, its {} orders in the batch were skipped", productName, productOrders.size());
+            return productOrders;
+        }
+        // Replay the update on the previous stock to tell which orders it took
+        return takeInOrder(previous.get().getAvailableQuantity(), productOrders);
+    }
+
+    // Takes the orders one after the other while the stock covers them, returns the ones that did not fit
+    private static List<Order> takeInOrder(int available, List<Order> productOrders) {
+        List<Order> shortages = new ArrayList<>();
+        for (Order order : productOrders) {
+            if (available >= order.getQuantity()) {
+                available -= order.getQuantity();
+            } else {
+                shortages.add(order);
+            }
+        }
+        return shortages;
+    }
+
+    // Same as processOrder, but the record offset is stored with the stock change, so a record that is
+    // delivered again after a rebalance or crash is skipped instead of decrementing the stock twice.
+    // Returns true when the stock was decremented.
+    public boolean processRecord(ConsumerRecord<String, Order> record) {
+        Order order = record.value();
+        log.info("kafka consumer received order: {} at {}-{}@{}", order, record.topic(), record.partition(), record.offset());
+
+        Optional<WarehouseStock> previous = warehouseRepository.decrementStockAtOffset(
+                order.getProductName(), order.getQuantity(), partitionKey(record), record.offset());
+        if (previous.isPresent()) {
+            if (previous.get().getAvailableQuantity() >= order.getQuantity()) {
+                log.info("warehouse stock of {} decremented by {}", order.getProductName(), order.getQuantity());
+                return true;
+            }
+            log.warn("Insufficient stock for order {}, warehouse stock of {} left unchanged",
+                    order.getOrderId(), order.getProductName());
+            return false;
+        }
+
+        if (!warehouseRepository.existsById(order.getProductName())) {
+            throw new RuntimeException("Product not found: " + order.getProductName());
+        }
+        log.info("order {} at offset {} was already applied, skipping the replay", order.getOrderId(), record.offset());
+        return false;
+    }
+
+    // Same as processOrders, with the offsets of each partition stored in the same update as the stock of a product.
+    // Records at or below the stored offset are dropped, the stocks and offsets are read once for the whole batch.
+    // Returns the number of records that decremented the stock.
+    public int processRecords(List<ConsumerRecord<String, Order>> records) {
+
+        log.info("kafka consumer received batch of {} records", records.size());
+
+        Set<String> productNames = records.stream()
+                .map(ConsumerRecord::value)
+                .map(Order::getProductName)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<String, WarehouseStock> stocks = new HashMap<>();
+        warehouseRepository.findAllById(productNames).forEach(stock -> stocks.put(stock.getProductName(), stock));
+
+        // Group per product, records of one partition arrive in offset order
+        Map<String, List<ConsumerRecord<String, Order>>> recordsByProduct = new LinkedHashMap<>();
+        int replayed = 0;
+        for (ConsumerRecord<String, Order> record : records) {
+            WarehouseStock stock = stocks.get(record.value().getProductName());
+            if (stock == null) {
+                continue;
+            }
+            Long appliedOffset = stock.getAppliedOffsets() == null ? null : stock.getAppliedOffsets().get(partitionKey(record));
+            if (appliedOffset != null && record.offset() <= appliedOffset) {
+                replayed++;
+                continue;
+            }
+            recordsByProduct.computeIfAbsent(stock.getProductName(), productName -> new ArrayList<>()).add(record);
+        }
+        if (replayed > 0) {
+            log.info("skipped {} records of the batch that were already applied", replayed);
+        }
+        if (stocks.size() < productNames.size()) {
+            log.warn("{} products in the batch were not found, their orders were skipped",
+                    productNames.size() - stocks.size());
+        }
+
+        int applied = 0;
+        for (List<ConsumerRecord<String, Order>> productRecords : recordsByProduct.values()) {
+            applied += applyRecords(stocks.get(productRecords.get(0).value().getProductName()), productRecords);
+        }
+        log.info("warehouse has been updated for {} products with {} of {} records", recordsByProduct.size(),
+                applied, records.size());
+        return applied;
+    }
+
+    // Applies the records of one product in offset order while the stock read covers them, in one update.
+    // Offsets only move over records that decremented the stock, a rejected record at the end of a partition is
+    // looked at again when it is redelivered. Returns the number of records that decremented the stock.
+    private int applyRecords(WarehouseStock stock, List<ConsumerRecord<String, Order>> records) {
+        int available = stock.getAvailableQuantity();
+        Map<String, OffsetDecrement> decrements = new LinkedHashMap<>();
+        List<Order> rejected = new ArrayList<>();
+        for (ConsumerRecord<String, Order> record : records) {
+            Order order = record.value();
+            if (available < order.getQuantity()) {
+                rejected.add(order);
+                continue;
+            }
+            available -= order.getQuantity();
+            String partition = partitionKey(record);
+            decrements.merge(partition,
+                    new OffsetDecrement(order.getProductName(), order.getQuantity(), partition, record.offset(), record.offset()),
+                    (current, next) -> new OffsetDecrement(current.productName(), current.quantity() + next.quantity(),
+                            partition, current.firstOffset(), next.lastOffset()));
+        }
+
+        if (!decrements.isEmpty() && warehouseRepository.decrementStockIfUnchanged(stock.getProductName(),
+                stock.getAvailableQuantity(), new ArrayList<>(decrements.values())).isEmpty()) {
+            // Someone else changed the stock since it was read, fall back to one guarded update per record
+            log.info("warehouse stock of {} changed during the batch, applying its {} records one by one",
+                    stock.getProductName(), records.size());
+            return (int) records.stream().filter(this::processRecord).count();
+        }
+
+        rejected.forEach(order -> log.warn("Insufficient stock for order {}, warehouse stock of {} left unchanged",
+                order.getOrderId(), order.getProductName()));
+        return records.size() - rejected.size();
+    }
 
-        // Save updated stock details back to the database
-        warehouseRepository.save(stock);
-        log.info("warehouse has been updated with with " + stock);
+    // Key of the record partition in WarehouseStock.appliedOffsets
+    public static String partitionKey(ConsumerRecord<?, ?> record) {
+        return record.topic() + "-" + record.partition();
     }
 }
@@ -0,0 +1,20 @@
+package com.KafkaOrderProcessingSystem.OrderProcessingSystem.config;
+
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils.OrderKeyStrategy;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KafkaConsumerConfigTest {
+
+    @Test
+    void ledgerKafkaListenerContainerFactory_RefusesOrderIdKeys() {
+        KafkaProducerProperties producerProperties = new KafkaProducerProperties();
+        producerProperties.setKeyStrategy(OrderKeyStrategy.ORDER_ID);
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> new KafkaConsumerConfig()
+                .ledgerKafkaListenerContainerFactory(null, null, new KafkaConsumerProperties(), producerProperties, null));
+
+        assertTrue(exception.getMessage().contains("key-strategy=product-name"));
+    }
+}
@@ -0,0 +1,51 @@
+package com.KafkaOrderProcessingSystem.OrderProcessingSystem.config;
+
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KafkaProducerConfigTest {
+
+    @Test
+    void producerProfileCustomizer_AppliesSelectedProfile() {
+        KafkaProducerProperties.Tuning throughput = new KafkaProducerProperties.Tuning();
+        throughput.setLinger(Duration.ofMillis(20));
+        throughput.setBatchSize(DataSize.ofKilobytes(256));
+        throughput.setCompressionType("lz4");
+        throughput.setMaxInFlightRequests(3);
+
+        KafkaProducerProperties producerProperties = new KafkaProducerProperties();
+        producerProperties.getProfiles().put("throughput", throughput);
+        producerProperties.setProfile("throughput");
+
+        DefaultKafkaProducerFactory<Object, Object> producerFactory = new DefaultKafkaProducerFactory<>(
+                new HashMap<>(Map.of(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9092")));
+        new KafkaProducerConfig().producerProfileCustomizer(producerProperties).customize(producerFactory);
+
+        Map<String, Object> configs = producerFactory.getConfigurationProperties();
+        assertEquals(20, configs.get(ProducerConfig.LINGER_MS_CONFIG));
+        assertEquals(256 * 1024, configs.get(ProducerConfig.BATCH_SIZE_CONFIG));
+        assertEquals("lz4", configs.get(ProducerConfig.COMPRESSION_TYPE_CONFIG));
+        assertEquals(true, configs.get(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG));
+        assertEquals("all", configs.get(ProducerConfig.ACKS_CONFIG));
+        assertEquals(3, configs.get(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION));
+        assertEquals("localhost:9092", configs.get(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG));
+    }
+
+    @Test
+    void getActiveProfile_UnknownProfileFailsFast() {
+        KafkaProducerProperties producerProperties = new KafkaProducerProperties();
+        producerProperties.setProfile("fastest");
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                producerProperties::getActiveProfile);
+        assertTrue(exception.getMessage().startsWith("Unknown producer profile: fastest"));
+    }
+}
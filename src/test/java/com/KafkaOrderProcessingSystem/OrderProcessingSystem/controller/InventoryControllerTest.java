@@ -1,8 +1,15 @@
 package com.KafkaOrderProcessingSystem.OrderProcessingSystem.controller;
 
 import com.KafkaOrderProcessingSystem.OrderProcessingSystem.GlobalExceptionHandler;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.config.InventoryProperties;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.dto.BatchStockAdjustmentRequestDTO;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.dto.InventoryImportDTO;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.dto.StockAdjustmentDTO;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.dto.StockCursorPageDTO;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.dto.StockLookupRequestDTO;
 import com.KafkaOrderProcessingSystem.OrderProcessingSystem.dto.WarehouseStockDTO;
 import com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity.WarehouseStock;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.service.InventoryImportService;
 import com.KafkaOrderProcessingSystem.OrderProcessingSystem.service.InventoryService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -12,23 +19,31 @@ import org.mockito.InjectMocks;
 import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(InventoryController.class)
 @Import(GlobalExceptionHandler.class)
+@EnableConfigurationProperties(InventoryProperties.class)
 class InventoryControllerTest {
 
     @Autowired
@@ -37,6 +52,9 @@ class InventoryControllerTest {
     @MockitoBean
     private InventoryService inventoryService;
 
+    @MockitoBean
+    private InventoryImportService inventoryImportService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -93,6 +111,66 @@ class InventoryControllerTest {
                 .andExpect(jsonPath("$.totalElements").value(2));
     }
 
+    @Test
+    void GetInventory_CursorTest() throws Exception {
+        StockCursorPageDTO cursorPage = StockCursorPageDTO.builder()
+                .content(List.of(new WarehouseStock("Laptop", 10)))
+                .size(1)
+                .nextCursor("next")
+                .build();
+
+        when(inventoryService.getInventoryAfter("", 1, "productName")).thenReturn(cursorPage);
+
+        mockMvc.perform(get("/inventory/stock_list")
+                        .param("size", "1")
+                        .param("cursor", ""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].productName").value("Laptop"))
+                .andExpect(jsonPath("$.nextCursor").value("next"))
+                .andExpect(jsonPath("$.totalElements").doesNotExist());
+        verify(inventoryService, never()).getInventory(anyInt(), anyInt(), any());
+    }
+
+    @Test
+    void ExportInventory_StreamsNdjsonTest() throws Exception {
+        doAnswer(invocation -> {
+            invocation.getArgument(0, OutputStream.class)
+                    .write("{\"productName\":\"Laptop\",\"availableQuantity\":10}\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(inventoryService).exportInventory(any(OutputStream.class));
+
+        MvcResult result = mockMvc.perform(get("/inventory/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        // The export's own timeout, other requests keep the default
+        assertEquals(Duration.ofMinutes(30).toMillis(), result.getRequest().getAsyncContext().getTimeout());
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string("{\"productName\":\"Laptop\",\"availableQuantity\":10}\n"));
+    }
+
+    @Test
+    void ImportInventory_NdjsonTest() throws Exception {
+        InventoryImportDTO imported = InventoryImportDTO.builder()
+                .imported(1)
+                .rejected(0)
+                .errors(List.of())
+                .message("1 products imported, 0 rows rejected")
+                .build();
+
+        when(inventoryImportService.importInventory(any(InputStream.class), eq(InventoryImportService.Format.NDJSON)))
+                .thenReturn(imported);
+
+        mockMvc.perform(post("/inventory/import")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"productName\":\"Laptop\",\"availableQuantity\":10}\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(1))
+                .andExpect(jsonPath("$.rejected").value(0));
+    }
+
     @Test
     void UpdateInventory_SuccessTest() throws Exception {
         WarehouseStockDTO dto = new WarehouseStockDTO("Laptop", 15, null);
@@ -123,4 +201,48 @@ class InventoryControllerTest {
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$.message").value("Product not found"));
     }
+
+    @Test
+    void AdjustInventory_SuccessTest() throws Exception {
+        BatchStockAdjustmentRequestDTO request = new BatchStockAdjustmentRequestDTO(List.of(
+                new StockAdjustmentDTO("Laptop", 5),
+                new StockAdjustmentDTO("Mouse", -2)));
+
+        when(inventoryService.adjustInventory(request.getAdjustments())).thenReturn(List.of(
+                new WarehouseStockDTO("Laptop", 15, "Stock updated successfully"),
+                new WarehouseStockDTO("Mouse", 0, "Product not found in inventory: Mouse")));
+
+        mockMvc.perform(put("/inventory/update_stock")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].availableQuantity").value(15))
+                .andExpect(jsonPath("$[1].message").value("Product not found in inventory: Mouse"));
+    }
+
+    @Test
+    void AdjustInventory_EmptyBatchTest() throws Exception {
+        mockMvc.perform(put("/inventory/update_stock")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"adjustments\":[]}"))
+                .andExpect(status().isBadRequest());
+
+        verify(inventoryService, never()).adjustInventory(any());
+    }
+
+    @Test
+    void LookupInventory_SuccessTest() throws Exception {
+        StockLookupRequestDTO request = new StockLookupRequestDTO(List.of("Laptop", "Printer"));
+
+        when(inventoryService.lookupInventory(List.of("Laptop", "Printer"))).thenReturn(List.of(
+                new WarehouseStockDTO("Laptop", 10, null),
+                new WarehouseStockDTO("Printer", 0, "Product not found in inventory: Printer")));
+
+        mockMvc.perform(post("/inventory/lookup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].availableQuantity").value(10))
+                .andExpect(jsonPath("$[1].message").value("Product not found in inventory: Printer"));
+    }
 }
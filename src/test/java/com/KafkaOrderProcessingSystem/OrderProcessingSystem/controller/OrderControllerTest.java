@@ -1,9 +1,14 @@
 package com.KafkaOrderProcessingSystem.OrderProcessingSystem.controller;
 
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.dto.BatchOrderRequestDTO;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.dto.OrderCursorPageDTO;
 import com.KafkaOrderProcessingSystem.OrderProcessingSystem.dto.OrderRequestDTO;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.dto.OrderResponseDTO;
 import com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity.Order;
 import com.KafkaOrderProcessingSystem.OrderProcessingSystem.repository.OrderRepository;
 import com.KafkaOrderProcessingSystem.OrderProcessingSystem.repository.WarehouseRepository;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.service.DeadLetterReplayService;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.service.OrderQueryService;
 import com.KafkaOrderProcessingSystem.OrderProcessingSystem.service.Impl.OrderProducerServiceImpl;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
@@ -13,11 +18,17 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -36,6 +47,12 @@ class OrderControllerTest {
     @MockitoBean
     private WarehouseRepository warehouseRepository;
 
+    @MockitoBean
+    private DeadLetterReplayService deadLetterReplayService;
+
+    @MockitoBean
+    private OrderQueryService orderQueryService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -85,4 +102,107 @@ class OrderControllerTest {
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$.message").value("Out of stock"));
     }
+
+    @Test
+    void testCreateOrderAsync_ReturnsAcceptedWithoutReadBack() throws Exception {
+        OrderRequestDTO requestDTO = new OrderRequestDTO("A1", "Laptop", 5, "PENDING");
+
+        Mockito.when(orderProducerService.submitOrderAsync(any(Order.class))).thenAnswer(invocation -> {
+            Order order = invocation.getArgument(0);
+            order.setStatus("PROCESSED");
+            return CompletableFuture.completedFuture(order);
+        });
+
+        MvcResult mvcResult = mockMvc.perform(post("/orders/create_order_async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requestDTO)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.orderId", is("A1")))
+                .andExpect(jsonPath("$.status", is("PROCESSED")))
+                .andExpect(jsonPath("$.message", is("Order accepted and queued for processing")));
+
+        Mockito.verify(orderRepository, Mockito.never()).findById(any());
+    }
+
+    @Test
+    void testCreateOrderAsync_SendFailure() throws Exception {
+        OrderRequestDTO requestDTO = new OrderRequestDTO("A2", "Laptop", 5, "PENDING");
+
+        Mockito.when(orderProducerService.submitOrderAsync(any(Order.class)))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("Broker unavailable")));
+
+        MvcResult mvcResult = mockMvc.perform(post("/orders/create_order_async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requestDTO)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Broker unavailable"));
+    }
+
+    @Test
+    void testCreateOrders_Batch_ReturnsResultPerOrder() throws Exception {
+        BatchOrderRequestDTO requestDTO = new BatchOrderRequestDTO(List.of(
+                new OrderRequestDTO("B1", "Laptop", 2, "PENDING"),
+                new OrderRequestDTO("B2", "Phone", 50, "PENDING")));
+
+        Mockito.when(orderProducerService.submitOrders(anyList())).thenReturn(List.of(
+                new OrderResponseDTO("B1", "Laptop", 2, "PROCESSED", "Order submitted successfully and queued for processing"),
+                new OrderResponseDTO("B2", "Phone", 50, "FAILED", "Order Quantity exceeds available stock: 3")));
+
+        mockMvc.perform(post("/orders/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requestDTO)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", is(2)))
+                .andExpect(jsonPath("$[0].orderId", is("B1")))
+                .andExpect(jsonPath("$[0].status", is("PROCESSED")))
+                .andExpect(jsonPath("$[1].orderId", is("B2")))
+                .andExpect(jsonPath("$[1].status", is("FAILED")));
+    }
+
+    @Test
+    void testCreateOrders_Batch_InvalidOrder() throws Exception {
+        BatchOrderRequestDTO requestDTO = new BatchOrderRequestDTO(List.of(
+                new OrderRequestDTO("B3", "Laptop", 0, "PENDING")));
+
+        mockMvc.perform(post("/orders/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requestDTO)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Quantity must be at least 1"));
+
+        Mockito.verify(orderProducerService, Mockito.never()).submitOrders(anyList());
+    }
+
+    @Test
+    void testReplayDeadLetters() throws Exception {
+        Mockito.when(deadLetterReplayService.replay(50)).thenReturn(3);
+
+        mockMvc.perform(post("/orders/dlt/replay").param("maxRecords", "50"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.replayed", is(3)))
+                .andExpect(jsonPath("$.message", is("3 dead letter orders sent back for processing")));
+    }
+
+    @Test
+    void testGetOrders_FilteredCursorPage() throws Exception {
+        OrderCursorPageDTO page = OrderCursorPageDTO.builder()
+                .content(List.of(new Order("O1", "Laptop", 5, "FAILED")))
+                .size(1)
+                .nextCursor("next")
+                .build();
+        Mockito.when(orderQueryService.findOrders("FAILED", null, null, 1)).thenReturn(page);
+
+        mockMvc.perform(get("/orders").param("status", "FAILED").param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].orderId", is("O1")))
+                .andExpect(jsonPath("$.nextCursor", is("next")));
+    }
 }
@@ -0,0 +1,98 @@
+package com.KafkaOrderProcessingSystem.OrderProcessingSystem.integration;
+
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.config.KafkaProducerProperties;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity.Order;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.bind.PropertySourcesPlaceholdersResolver;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Sends the same load through every producer profile of application.yaml against an embedded broker and reports
+// records/s and send latency percentiles (send call to broker acknowledgement).
+// Excluded from the default build, run with: mvn test -Pbenchmark
+@Tag("benchmark")
+@EmbeddedKafka(partitions = 3, topics = {"orders-benchmark"})
+class ProducerProfileBenchmarkTest {
+
+    private static final int WARMUP_RECORDS = 20_000;
+
+    private static final int MEASURED_RECORDS = 200_000;
+
+    @Test
+    void producerProfiles_ReportThroughputAndLatency(EmbeddedKafkaBroker broker) throws Exception {
+        KafkaProducerProperties producerProperties = loadProducerProperties();
+        assertFalse(producerProperties.getProfiles().isEmpty());
+
+        for (Map.Entry<String, KafkaProducerProperties.Tuning> profile : producerProperties.getProfiles().entrySet()) {
+            Map<String, Object> configs = new HashMap<>(profile.getValue().toProducerConfigs());
+            configs.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString());
+            DefaultKafkaProducerFactory<String, Order> producerFactory =
+                    new DefaultKafkaProducerFactory<>(configs, new StringSerializer(), new JsonSerializer<>());
+            try {
+                KafkaTemplate<String, Order> kafkaTemplate = new KafkaTemplate<>(producerFactory);
+                send(kafkaTemplate, WARMUP_RECORDS);
+
+                long start = System.nanoTime();
+                long[] latencies = send(kafkaTemplate, MEASURED_RECORDS);
+                double seconds = (System.nanoTime() - start) / 1e9;
+
+                Arrays.sort(latencies);
+                System.out.printf("%-12s %9.0f records/s  p50 %7.2f ms  p99 %7.2f ms  p99.9 %7.2f ms  max %7.2f ms%n",
+                        profile.getKey(), MEASURED_RECORDS / seconds,
+                        percentile(latencies, 50), percentile(latencies, 99), percentile(latencies, 99.9),
+                        latencies[latencies.length - 1] / 1e6);
+            } finally {
+                producerFactory.destroy();
+            }
+        }
+    }
+
+    // Pipelines every send and returns the latency of each one in nanoseconds once all are acknowledged
+    private long[] send(KafkaTemplate<String, Order> kafkaTemplate, int count) {
+        long[] latencies = new long[count];
+        List<CompletableFuture<?>> acks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int index = i;
+            Order order = new Order("order-" + i, "product-" + (i % 200), 1, "PROCESSED");
+            long sentAt = System.nanoTime();
+            acks.add(kafkaTemplate.send("orders-benchmark", order.getProductName(), order)
+                    .whenComplete((result, ex) -> latencies[index] = System.nanoTime() - sentAt));
+        }
+        CompletableFuture.allOf(acks.toArray(new CompletableFuture[0])).join();
+        return latencies;
+    }
+
+    private static double percentile(long[] sortedLatencies, double percentile) {
+        int index = (int) Math.ceil(percentile / 100 * sortedLatencies.length) - 1;
+        return sortedLatencies[Math.max(0, index)] / 1e6;
+    }
+
+    // Binds app.kafka.producer from application.yaml, so the benchmark measures the profiles the application uses
+    private static KafkaProducerProperties loadProducerProperties() throws Exception {
+        List<PropertySource<?>> sources = new YamlPropertySourceLoader()
+                .load("application", new ClassPathResource("application.yaml"));
+        Binder binder = new Binder(ConfigurationPropertySources.from(sources),
+                new PropertySourcesPlaceholdersResolver(sources));
+        return binder.bind("app.kafka.producer", KafkaProducerProperties.class).get();
+    }
+}
@@ -0,0 +1,163 @@
+package com.KafkaOrderProcessingSystem.OrderProcessingSystem.integration;
+
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.OrderProcessingSystemApplication;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity.WarehouseStock;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.repository.WarehouseRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Starts the application once with platform threads and once with virtual threads, then holds an increasing number
+// of concurrent clients on POST /orders/create_order and reports requests/s and latency per level.
+// A level counts as sustained when no request failed and p99 stayed within the limit below.
+// Needs the local MongoDB of docker-compose (same as the integration tests), orders go to a scratch database.
+// Excluded from the default build, run with: mvn test -Pbenchmark
+@Tag("benchmark")
+@EmbeddedKafka(partitions = 3, topics = {"orders"})
+class VirtualThreadBenchmarkTest {
+
+    private static final int[] CONCURRENCY_LEVELS = {50, 200, 400, 800, 1600};
+
+    private static final Duration WARMUP = Duration.ofSeconds(5);
+
+    private static final Duration LEVEL_DURATION = Duration.ofSeconds(10);
+
+    private static final long SUSTAINED_P99_MS = 1000;
+
+    private static final String PRODUCT = "BenchmarkProduct";
+
+    // Same Mongo pool for both modes, large enough that the thread model is what differs
+    private static final String MONGO_URI = System.getProperty("benchmark.mongodb.uri",
+            "mongodb://localhost:27017/warehouse_benchmark?maxPoolSize=500");
+
+    @Test
+    void createOrder_ReportsSustainedConcurrencyPerThreadMode(EmbeddedKafkaBroker broker) throws Exception {
+        int platform = run("platform", false, broker);
+        int virtual = run("virtual", true, broker);
+
+        System.out.printf("max sustained concurrent requests: platform %d, virtual %d%n", platform, virtual);
+        assertTrue(platform > 0 && virtual > 0, "the lowest concurrency level must be sustained in both modes");
+    }
+
+    // Returns the highest sustained concurrency level of one thread mode
+    private int run(String mode, boolean virtualThreads, EmbeddedKafkaBroker broker) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(OrderProcessingSystemApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.threads.virtual.enabled=" + virtualThreads,
+                        "spring.kafka.bootstrap-servers=" + broker.getBrokersAsString(),
+                        "spring.kafka.listener.auto-startup=false",
+                        "spring.data.mongodb.uri=" + MONGO_URI,
+                        "logging.level.com.KafkaOrderProcessingSystem=WARN")
+                .run()) {
+
+            MongoTemplate mongoTemplate = context.getBean(MongoTemplate.class);
+            mongoTemplate.getDb().drop();
+            context.getBean(WarehouseRepository.class).save(new WarehouseStock(PRODUCT, Integer.MAX_VALUE));
+
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            URI uri = URI.create("http://localhost:" + port + "/orders/create_order");
+            AtomicLong orderIds = new AtomicLong();
+
+            try (HttpClient client = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build()) {
+                load(client, uri, mode, orderIds, CONCURRENCY_LEVELS[0], WARMUP);
+
+                int sustained = 0;
+                for (int concurrency : CONCURRENCY_LEVELS) {
+                    LevelResult result = load(client, uri, mode, orderIds, concurrency, LEVEL_DURATION);
+                    boolean ok = result.errors() == 0 && result.p99Millis() <= SUSTAINED_P99_MS;
+                    System.out.printf("%-8s %5d clients  %8.0f req/s  p50 %7.1f ms  p99 %7.1f ms  errors %d%s%n",
+                            mode, concurrency, (double) result.requests() / LEVEL_DURATION.toSeconds(),
+                            result.percentileMillis(50), result.p99Millis(), result.errors(), ok ? "" : "  (not sustained)");
+                    if (!ok) {
+                        break;
+                    }
+                    sustained = concurrency;
+                }
+                return sustained;
+            } finally {
+                mongoTemplate.getDb().drop();
+            }
+        }
+    }
+
+    // Keeps the given number of clients sending orders back to back for the duration
+    private LevelResult load(HttpClient client, URI uri, String mode, AtomicLong orderIds, int concurrency,
+                             Duration duration) {
+        long deadline = System.nanoTime() + duration.toNanos();
+        List<List<Long>> latencies = new ArrayList<>(concurrency);
+        AtomicLong errors = new AtomicLong();
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                List<Long> clientLatencies = new ArrayList<>();
+                latencies.add(clientLatencies);
+                clients.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        String body = """
+                                {"orderId":"%s-%d","productName":"%s","quantity":1,"status":"PENDING"}"""
+                                .formatted(mode, orderIds.incrementAndGet(), PRODUCT);
+                        HttpRequest request = HttpRequest.newBuilder(uri)
+                                .header("Content-Type", "application/json")
+                                .timeout(Duration.ofSeconds(30))
+                                .POST(HttpRequest.BodyPublishers.ofString(body))
+                                .build();
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() != 201) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                        clientLatencies.add(System.nanoTime() - start);
+                    }
+                    return null;
+                });
+            }
+        }
+
+        long[] all = latencies.stream().flatMap(List::stream).mapToLong(Long::longValue).toArray();
+        Arrays.sort(all);
+        return new LevelResult(all, errors.get());
+    }
+
+    private record LevelResult(long[] sortedLatencies, long errors) {
+
+        long requests() {
+            return sortedLatencies.length;
+        }
+
+        double p99Millis() {
+            return percentileMillis(99);
+        }
+
+        double percentileMillis(double percentile) {
+            if (sortedLatencies.length == 0) {
+                return Double.MAX_VALUE;
+            }
+            int index = (int) Math.ceil(percentile / 100 * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(0, index)] / 1e6;
+        }
+    }
+}
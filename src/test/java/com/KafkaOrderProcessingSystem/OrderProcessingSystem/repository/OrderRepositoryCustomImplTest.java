@@ -0,0 +1,174 @@
+package com.KafkaOrderProcessingSystem.OrderProcessingSystem.repository;
+
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity.Order;
+import com.mongodb.bulk.BulkWriteError;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderRepositoryCustomImplTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @InjectMocks
+    private OrderRepositoryCustomImpl orderRepositoryCustom;
+
+    private final List<Order> orders = List.of(
+            new Order("1001", "Laptop", 1, "PROCESSED"),
+            new Order("1002", "Laptop", 1, "PROCESSED"));
+
+    @Test
+    void testInsertAbsent_ReportsTakenIds() {
+        BulkOperations bulkOperations = mockBulkOperations();
+        BulkWriteError duplicate = new BulkWriteError(11000, "E11000 duplicate key error", new BsonDocument(), 1);
+        // Built before when(...), stubbing the exception mock inside another stubbing is not allowed
+        BulkOperationException failure = bulkFailure(duplicate);
+        when(bulkOperations.execute()).thenThrow(failure);
+
+        assertEquals(Set.of("1002"), orderRepositoryCustom.insertAbsent(orders));
+    }
+
+    @Test
+    void testInsertAbsent_OtherWriteErrorsAreRethrown() {
+        BulkOperations bulkOperations = mockBulkOperations();
+        BulkWriteError error = new BulkWriteError(121, "Document failed validation", new BsonDocument(), 0);
+        BulkOperationException failure = bulkFailure(error);
+        when(bulkOperations.execute()).thenThrow(failure);
+
+        assertThrows(BulkOperationException.class, () -> orderRepositoryCustom.insertAbsent(orders));
+    }
+
+    @Test
+    void testInsertAbsent_EmptyListSkipsMongo() {
+        assertTrue(orderRepositoryCustom.insertAbsent(List.of()).isEmpty());
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void testClearOutbox_EmptyListSkipsMongo() {
+        orderRepositoryCustom.clearOutbox(List.of());
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void testClearOutbox_UnsetsMarkerInOneUpdate() {
+        orderRepositoryCustom.clearOutbox(List.of("1001", "1002"));
+
+        verify(mongoTemplate, times(1)).updateMulti(any(Query.class), eq(new Update().unset("outboxCreatedAt")),
+                eq(Order.class));
+    }
+
+    @Test
+    void testFindOrdersAfter_EqualityFiltersThenIdSeek() {
+        when(mongoTemplate.find(any(Query.class), eq(Order.class))).thenReturn(List.of());
+
+        orderRepositoryCustom.findOrdersAfter("FAILED", "Laptop", "1001", 51);
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(Order.class));
+        assertEquals(new Document("status", "FAILED")
+                        .append("productName", "Laptop")
+                        .append("$or", List.of(
+                                new Document("_id", new Document("$gt", "1001")),
+                                new Document("_id", new Document("$type", List.of("objectId"))))),
+                query.getValue().getQueryObject());
+        assertEquals(new Document("_id", 1), query.getValue().getSortObject());
+        assertEquals(51, query.getValue().getLimit());
+        assertEquals(0, query.getValue().getSkip());
+    }
+
+    @Test
+    void testFindOrdersAfter_MixedIds_ObjectIdCursorOnlySeeksObjectIds() {
+        // Orders saved without an id got ObjectIds, they sort after every string id
+        String objectId = "65f1c0ffee0000000000abcd";
+        when(mongoTemplate.find(any(Query.class), eq(Order.class))).thenReturn(List.of());
+
+        orderRepositoryCustom.findOrdersAfter(null, null, objectId, 51);
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(Order.class));
+        assertEquals(new Document("_id", new Document("$gt", new ObjectId(objectId))),
+                query.getValue().getQueryObject());
+        assertEquals(new Document("_id", 1), query.getValue().getSortObject());
+    }
+
+    @Test
+    void testFindOrdersAfter_NoFilters() {
+        when(mongoTemplate.find(any(Query.class), eq(Order.class))).thenReturn(List.of());
+
+        orderRepositoryCustom.findOrdersAfter(null, null, null, 51);
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(Order.class));
+        assertTrue(query.getValue().getQueryObject().isEmpty());
+    }
+
+    @Test
+    void testEnsureOutboxIndex_CreatesSparseIndex() {
+        IndexOperations indexOperations = mock(IndexOperations.class);
+        when(mongoTemplate.indexOps(Order.class)).thenReturn(indexOperations);
+
+        orderRepositoryCustom.ensureOutboxIndex();
+
+        ArgumentCaptor<IndexDefinition> index = ArgumentCaptor.forClass(IndexDefinition.class);
+        verify(indexOperations).createIndex(index.capture());
+        assertEquals(new Document("outboxCreatedAt", 1), index.getValue().getIndexKeys());
+        assertEquals(true, index.getValue().getIndexOptions().get("sparse"));
+        assertEquals("outboxCreatedAt", index.getValue().getIndexOptions().get("name"));
+    }
+
+    @Test
+    void testEnsureOrderListIndexes_CreatesCompoundIndexesEndingOnId() {
+        IndexOperations indexOperations = mock(IndexOperations.class);
+        when(mongoTemplate.indexOps(Order.class)).thenReturn(indexOperations);
+
+        orderRepositoryCustom.ensureOrderListIndexes();
+
+        ArgumentCaptor<IndexDefinition> index = ArgumentCaptor.forClass(IndexDefinition.class);
+        verify(indexOperations, times(3)).createIndex(index.capture());
+        assertEquals(List.of(
+                new Document("status", 1).append("_id", 1),
+                new Document("productName", 1).append("_id", 1),
+                new Document("productName", 1).append("status", 1).append("_id", 1)),
+                index.getAllValues().stream().map(IndexDefinition::getIndexKeys).toList());
+        assertEquals(List.of("status_id", "productName_id", "productName_status_id"),
+                index.getAllValues().stream().map(definition -> definition.getIndexOptions().get("name")).toList());
+    }
+
+    private BulkOperationException bulkFailure(BulkWriteError error) {
+        BulkOperationException exception = mock(BulkOperationException.class);
+        when(exception.getErrors()).thenReturn(List.of(error));
+        return exception;
+    }
+
+    private BulkOperations mockBulkOperations() {
+        BulkOperations bulkOperations = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class)).thenReturn(bulkOperations);
+        when(bulkOperations.insert(anyList())).thenReturn(bulkOperations);
+        return bulkOperations;
+    }
+}
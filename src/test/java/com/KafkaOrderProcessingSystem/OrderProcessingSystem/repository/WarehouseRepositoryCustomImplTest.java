@@ -0,0 +1,360 @@
+package com.KafkaOrderProcessingSystem.OrderProcessingSystem.repository;
+
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity.WarehouseStock;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.repository.WarehouseRepositoryCustom.OffsetDecrement;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.repository.WarehouseRepositoryCustom.StockDecrement;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils.StockCursor;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils.WarehouseStockCache;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WarehouseRepositoryCustomImplTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private WarehouseStockCache warehouseStockCache;
+
+    @InjectMocks
+    private WarehouseRepositoryCustomImpl warehouseRepositoryCustom;
+
+    @Test
+    void testDecrementStockIfAvailable_GuardsOnRemainingQuantity() {
+        WarehouseStock updated = new WarehouseStock("Laptop", 7);
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(WarehouseStock.class))).thenReturn(updated);
+
+        Optional<WarehouseStock> result = warehouseRepositoryCustom.decrementStockIfAvailable("Laptop", 3);
+
+        assertEquals(Optional.of(updated), result);
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).findAndModify(query.capture(), update.capture(),
+                any(FindAndModifyOptions.class), eq(WarehouseStock.class));
+
+        Document criteria = query.getValue().getQueryObject();
+        assertEquals("Laptop", criteria.get("productName"));
+        assertEquals(new Document("$gte", 3), criteria.get("availableQuantity"));
+        assertEquals(new Document("availableQuantity", -3), update.getValue().getUpdateObject().get("$inc"));
+        verify(warehouseStockCache, times(1)).put(updated);
+    }
+
+    @Test
+    void testDecrementStockIfAvailable_InsufficientStockReturnsEmpty() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(WarehouseStock.class))).thenReturn(null);
+
+        assertTrue(warehouseRepositoryCustom.decrementStockIfAvailable("Laptop", 30).isEmpty());
+    }
+
+    @Test
+    void testDecrementStockInOrder_ReducesQuantitiesInOneUpdate() {
+        WarehouseStock previous = new WarehouseStock("Laptop", 5);
+        when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class),
+                any(FindAndModifyOptions.class), eq(WarehouseStock.class))).thenReturn(previous);
+
+        assertEquals(Optional.of(previous), warehouseRepositoryCustom.decrementStockInOrder("Laptop", List.of(3, 3, 2)));
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<UpdateDefinition> update = ArgumentCaptor.forClass(UpdateDefinition.class);
+        ArgumentCaptor<FindAndModifyOptions> options = ArgumentCaptor.forClass(FindAndModifyOptions.class);
+        verify(mongoTemplate).findAndModify(query.capture(), update.capture(), options.capture(), eq(WarehouseStock.class));
+
+        assertEquals(new Document("productName", "Laptop"), query.getValue().getQueryObject());
+        Document set = ((AggregationUpdate) update.getValue()).toPipeline(Aggregation.DEFAULT_CONTEXT).get(0);
+        Document reduce = (Document) ((Document) set.get("$set")).get("availableQuantity");
+        assertEquals(List.of(3, 3, 2), ((Document) reduce.get("$reduce")).get("input"));
+        assertFalse(options.getValue().isReturnNew());
+        verify(warehouseStockCache, times(1)).evict("Laptop");
+    }
+
+    @Test
+    void testDecrementStockInOrder_MissingProductReturnsEmpty() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class),
+                any(FindAndModifyOptions.class), eq(WarehouseStock.class))).thenReturn(null);
+
+        assertTrue(warehouseRepositoryCustom.decrementStockInOrder("Mouse", List.of(1)).isEmpty());
+        verifyNoInteractions(warehouseStockCache);
+    }
+
+    @Test
+    void testAdjustStocks_GuardsDecrementsInTheSameBulkAsIncrements() {
+        BulkOperations bulkOperations = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, WarehouseStock.class)).thenReturn(bulkOperations);
+        when(mongoTemplate.find(any(Query.class), eq(WarehouseStock.class))).thenReturn(List.of(new WarehouseStock("Mouse", 2)));
+
+        Map<String, Integer> deltas = new LinkedHashMap<>();
+        deltas.put("Laptop", 5);
+        deltas.put("Mouse", -3);
+        deltas.put("Printer", -1);
+
+        assertEquals(Set.of("Mouse"), warehouseRepositoryCustom.adjustStocks(deltas));
+
+        ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(bulkOperations, times(3)).updateOne(queries.capture(), updates.capture());
+        verify(bulkOperations, times(1)).execute();
+        verify(mongoTemplate, never()).updateFirst(any(Query.class), any(Update.class), eq(WarehouseStock.class));
+        assertNull(queries.getAllValues().get(0).getQueryObject().get("availableQuantity"));
+        assertEquals(new Document("$gte", 3), queries.getAllValues().get(1).getQueryObject().get("availableQuantity"));
+        assertTrue(updates.getAllValues().get(1).modifies("recentAdjustments"));
+
+        // One read for the decremented products that did not get the token of this call
+        ArgumentCaptor<Query> refusedQuery = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(refusedQuery.capture(), eq(WarehouseStock.class));
+        Document criteria = refusedQuery.getValue().getQueryObject();
+        assertEquals(new Document("$in", List.of("Mouse", "Printer")), criteria.get("productName"));
+        Update.Modifiers pushed = (Update.Modifiers) ((Document) updates.getAllValues().get(1).getUpdateObject()
+                .get("$push")).get("recentAdjustments");
+        Object token = ((Document) criteria.get("recentAdjustments")).get("$ne");
+        assertTrue(pushed.getModifiers().stream()
+                .anyMatch(modifier -> modifier.getValue() instanceof Object[] each && List.of(each).contains(token)));
+        verify(warehouseStockCache, times(1)).evict(deltas.keySet());
+    }
+
+    @Test
+    void testDecrementStocksIfUnchanged_ComparesQuantityAndReportsMisses() {
+        BulkOperations bulkOperations = mock(BulkOperations.class);
+        BulkWriteResult bulkWriteResult = mock(BulkWriteResult.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, WarehouseStock.class)).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenReturn(bulkWriteResult);
+        when(bulkWriteResult.getMatchedCount()).thenReturn(1);
+        // Only Laptop carries the token of this call afterwards
+        when(mongoTemplate.find(any(Query.class), eq(WarehouseStock.class))).thenReturn(List.of(new WarehouseStock("Laptop", 3)));
+
+        assertEquals(Set.of("Mouse"), warehouseRepositoryCustom.decrementStocksIfUnchanged(List.of(
+                new StockDecrement("Laptop", 10, 7), new StockDecrement("Mouse", 4, 1))));
+
+        ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(bulkOperations, times(2)).updateOne(queries.capture(), updates.capture());
+        verify(bulkOperations, times(1)).execute();
+        assertEquals(10, queries.getAllValues().get(0).getQueryObject().get("availableQuantity"));
+        assertEquals(new Document("availableQuantity", -7), updates.getAllValues().get(0).getUpdateObject().get("$inc"));
+        verify(warehouseStockCache, times(1)).evict(List.of("Laptop", "Mouse"));
+    }
+
+    @Test
+    void testDecrementStocksIfUnchanged_NothingMatchedSkipsTheRead() {
+        BulkOperations bulkOperations = mock(BulkOperations.class);
+        BulkWriteResult bulkWriteResult = mock(BulkWriteResult.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, WarehouseStock.class)).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenReturn(bulkWriteResult);
+
+        assertEquals(Set.of("Laptop"), warehouseRepositoryCustom.decrementStocksIfUnchanged(
+                List.of(new StockDecrement("Laptop", 10, 7))));
+        verify(mongoTemplate, never()).find(any(Query.class), eq(WarehouseStock.class));
+    }
+
+    @Test
+    void testAdjustStock_GuardsDecrementAndRefreshesCache() {
+        WarehouseStock updated = new WarehouseStock("Laptop", 7);
+        when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class),
+                any(FindAndModifyOptions.class), eq(WarehouseStock.class))).thenReturn(updated);
+
+        assertEquals(Optional.of(updated), warehouseRepositoryCustom.adjustStock("Laptop", -3));
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<FindAndModifyOptions> options = ArgumentCaptor.forClass(FindAndModifyOptions.class);
+        verify(mongoTemplate).findAndModify(query.capture(), any(UpdateDefinition.class), options.capture(),
+                eq(WarehouseStock.class));
+        assertEquals(new Document("$gte", 3), query.getValue().getQueryObject().get("availableQuantity"));
+        assertTrue(options.getValue().isReturnNew());
+        verify(warehouseStockCache).put(updated);
+    }
+
+    @Test
+    void testDecrementStockAtOffset_GuardsOnAppliedOffset() {
+        WarehouseStock previous = new WarehouseStock("Laptop", 10);
+        when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class),
+                any(FindAndModifyOptions.class), eq(WarehouseStock.class))).thenReturn(previous);
+
+        assertEquals(Optional.of(previous), warehouseRepositoryCustom.decrementStockAtOffset("Laptop", 3, "orders-0", 42));
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<FindAndModifyOptions> options = ArgumentCaptor.forClass(FindAndModifyOptions.class);
+        verify(mongoTemplate).findAndModify(query.capture(), any(UpdateDefinition.class),
+                options.capture(), eq(WarehouseStock.class));
+
+        Document criteria = query.getValue().getQueryObject();
+        assertEquals("Laptop", criteria.get("productName"));
+        assertEquals(new Document("$not", new Document("$gte", 42L)), criteria.get("appliedOffsets.orders-0"));
+        assertFalse(options.getValue().isReturnNew());
+        verify(warehouseStockCache, times(1)).evict("Laptop");
+    }
+
+    @Test
+    void testDecrementStockIfUnchanged_GuardsOnQuantityAndOffsets() {
+        WarehouseStock previous = new WarehouseStock("Laptop", 10);
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(WarehouseStock.class))).thenReturn(previous);
+
+        assertEquals(Optional.of(previous), warehouseRepositoryCustom.decrementStockIfUnchanged("Laptop", 10, List.of(
+                new OffsetDecrement("Laptop", 3, "orders-0", 40, 42),
+                new OffsetDecrement("Laptop", 2, "orders-1", 7, 7))));
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).findAndModify(query.capture(), update.capture(),
+                any(FindAndModifyOptions.class), eq(WarehouseStock.class));
+
+        Document criteria = query.getValue().getQueryObject();
+        assertEquals(10, criteria.get("availableQuantity"));
+        assertEquals(new Document("$not", new Document("$gte", 40L)), criteria.get("appliedOffsets.orders-0"));
+        assertEquals(new Document("$not", new Document("$gte", 7L)), criteria.get("appliedOffsets.orders-1"));
+        assertEquals(new Document("availableQuantity", -5), update.getValue().getUpdateObject().get("$inc"));
+        assertEquals(new Document("appliedOffsets.orders-0", 42L).append("appliedOffsets.orders-1", 7L),
+                update.getValue().getUpdateObject().get("$set"));
+        verify(warehouseStockCache, times(1)).evict("Laptop");
+    }
+
+    @Test
+    void testDecrementStocksAtOffsets_StoresOffsetWithDecrement() {
+        BulkOperations bulkOperations = mock(BulkOperations.class);
+        BulkWriteResult bulkWriteResult = mock(BulkWriteResult.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, WarehouseStock.class)).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenReturn(bulkWriteResult);
+        when(bulkWriteResult.getMatchedCount()).thenReturn(1);
+
+        assertTrue(warehouseRepositoryCustom.decrementStocksAtOffsets(
+                List.of(new OffsetDecrement("Laptop", 5, "orders-0", 5, 6))).isEmpty());
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(bulkOperations).updateOne(query.capture(), update.capture());
+        assertEquals(new Document("$not", new Document("$gte", 5L)),
+                query.getValue().getQueryObject().get("appliedOffsets.orders-0"));
+        assertEquals(new Document("$gte", 5), query.getValue().getQueryObject().get("availableQuantity"));
+        assertEquals(new Document("availableQuantity", -5), update.getValue().getUpdateObject().get("$inc"));
+        assertEquals(new Document("appliedOffsets.orders-0", 6L), update.getValue().getUpdateObject().get("$set"));
+        verify(warehouseStockCache, times(1)).evict(List.of("Laptop"));
+    }
+
+    @Test
+    void testDecrementStocksAtOffsets_ReportsDecrementsTheStockNoLongerCovers() {
+        BulkOperations bulkOperations = mock(BulkOperations.class);
+        BulkWriteResult bulkWriteResult = mock(BulkWriteResult.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, WarehouseStock.class)).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenReturn(bulkWriteResult);
+        when(bulkWriteResult.getMatchedCount()).thenReturn(1);
+        when(mongoTemplate.find(any(Query.class), eq(WarehouseStock.class))).thenReturn(List.of(
+                WarehouseStock.builder().productName("Laptop").appliedOffsets(Map.of("orders-0", 6L)).build(),
+                WarehouseStock.builder().productName("Mouse").appliedOffsets(Map.of("orders-0", 2L)).build()));
+
+        OffsetDecrement mouse = new OffsetDecrement("Mouse", 3, "orders-0", 3, 4);
+        assertEquals(List.of(mouse), warehouseRepositoryCustom.decrementStocksAtOffsets(
+                List.of(new OffsetDecrement("Laptop", 5, "orders-0", 5, 6), mouse)));
+    }
+
+    @Test
+    void testFindStockPageAfter_SeeksPastCursorWithoutSkip() {
+        when(mongoTemplate.find(any(Query.class), eq(WarehouseStock.class))).thenReturn(List.of());
+
+        warehouseRepositoryCustom.findStockPageAfter("availableQuantity",
+                new StockCursor("availableQuantity", 10, "Laptop"), 11);
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(WarehouseStock.class));
+
+        Document criteria = query.getValue().getQueryObject();
+        assertEquals(List.of(
+                new Document("availableQuantity", new Document("$gt", 10)),
+                new Document("availableQuantity", 10).append("productName", new Document("$gt", "Laptop"))),
+                criteria.get("$or"));
+        assertEquals(new Document("availableQuantity", 1).append("productName", 1), query.getValue().getSortObject());
+        assertEquals(11, query.getValue().getLimit());
+        assertEquals(0, query.getValue().getSkip());
+        verify(mongoTemplate, never()).count(any(Query.class), eq(WarehouseStock.class));
+    }
+
+    @Test
+    void testEnsureStockListIndex_CreatesQuantityThenIdIndex() {
+        IndexOperations indexOperations = mock(IndexOperations.class);
+        when(mongoTemplate.indexOps(WarehouseStock.class)).thenReturn(indexOperations);
+
+        warehouseRepositoryCustom.ensureStockListIndex();
+
+        ArgumentCaptor<IndexDefinition> index = ArgumentCaptor.forClass(IndexDefinition.class);
+        verify(indexOperations).createIndex(index.capture());
+        assertEquals(new Document("availableQuantity", 1).append("_id", 1), index.getValue().getIndexKeys());
+        assertEquals("availableQuantity_productName", index.getValue().getIndexOptions().get("name"));
+    }
+
+    @Test
+    void testInsertStocks_ReportsRejectedIndexes() {
+        BulkOperations bulkOperations = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, WarehouseStock.class)).thenReturn(bulkOperations);
+        when(bulkOperations.insert(anyList())).thenReturn(bulkOperations);
+        BulkOperationException failure = mock(BulkOperationException.class);
+        when(failure.getErrors()).thenReturn(List.of(
+                new BulkWriteError(11000, "E11000 duplicate key error", new BsonDocument(), 0),
+                new BulkWriteError(121, "Document failed validation", new BsonDocument(), 2)));
+        when(bulkOperations.execute()).thenThrow(failure);
+
+        Map<Integer, String> rejected = warehouseRepositoryCustom.insertStocks(List.of(new WarehouseStock("Laptop", 1),
+                new WarehouseStock("Mouse", 2), new WarehouseStock("Printer", 3)));
+
+        assertEquals(Map.of(0, "The product name already exists", 2, "Document failed validation"), rejected);
+        verifyNoInteractions(warehouseStockCache);
+    }
+
+    @Test
+    void testStreamAllStock_ReadsInIdOrderInBatches() {
+        when(mongoTemplate.stream(any(Query.class), eq(WarehouseStock.class))).thenReturn(Stream.empty());
+
+        warehouseRepositoryCustom.streamAllStock();
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).stream(query.capture(), eq(WarehouseStock.class));
+        assertTrue(query.getValue().getQueryObject().isEmpty());
+        assertEquals(new Document("productName", 1), query.getValue().getSortObject());
+        assertEquals(Integer.valueOf(1000), query.getValue().getMeta().getCursorBatchSize());
+        assertEquals(new Document("appliedOffsets", 0), query.getValue().getFieldsObject());
+    }
+
+    @Test
+    void testFindStockPageAfter_FirstPageHasNoSeek() {
+        when(mongoTemplate.find(any(Query.class), eq(WarehouseStock.class))).thenReturn(List.of());
+
+        warehouseRepositoryCustom.findStockPageAfter("productName", null, 11);
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(WarehouseStock.class));
+        assertTrue(query.getValue().getQueryObject().isEmpty());
+        assertEquals(new Document("productName", 1), query.getValue().getSortObject());
+    }
+}
@@ -0,0 +1,67 @@
+package com.KafkaOrderProcessingSystem.OrderProcessingSystem.serializer;
+
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity.Order;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderBinaryCodecTest {
+
+    private final OrderBinarySerializer serializer = new OrderBinarySerializer();
+
+    private final OrderBinaryDeserializer deserializer = new OrderBinaryDeserializer();
+
+    @Test
+    void roundTrip_KeepsAllFields() {
+        Order order = new Order("1001", "Laptop", 2, "PROCESSED");
+
+        byte[] data = serializer.serialize("orders", order);
+
+        assertEquals(order, deserializer.deserialize("orders", data));
+        // version, two short strings, fixed width quantity and the status byte
+        assertEquals(1 + 5 + 7 + 4 + 1, data.length);
+    }
+
+    @Test
+    void roundTrip_NullsUnknownStatusAndMultiByteText() {
+        Order order = new Order(null, "Ноутбук 💻", -3, "ON_HOLD");
+
+        assertEquals(order, deserializer.deserialize("orders", serializer.serialize("orders", order)));
+    }
+
+    @Test
+    void deserialize_FallsBackToJsonRecords() {
+        Order order = new Order("1002", "Mouse", 1, "PROCESSED");
+        try (JsonSerializer<Order> jsonSerializer = new JsonSerializer<>()) {
+            byte[] json = jsonSerializer.serialize("orders", order);
+
+            assertEquals(order, deserializer.deserialize("orders", json));
+        }
+    }
+
+    @Test
+    void deserialize_RejectsUnknownVersion() {
+        byte[] data = serializer.serialize("orders", new Order("1003", "Mouse", 1, "FAILED"));
+        data[0] = 9;
+
+        assertThrows(SerializationException.class, () -> deserializer.deserialize("orders", data));
+    }
+
+    @Test
+    void deserialize_RejectsTruncatedRecord() {
+        byte[] data = serializer.serialize("orders", new Order("1004", "Mouse", 1, "FAILED"));
+        byte[] truncated = Arrays.copyOf(data, data.length - 3);
+
+        assertThrows(SerializationException.class, () -> deserializer.deserialize("orders", truncated));
+    }
+
+    @Test
+    void nullRecords_StayNull() {
+        assertNull(serializer.serialize("orders", null));
+        assertNull(deserializer.deserialize("orders", null));
+    }
+}
@@ -0,0 +1,73 @@
+package com.KafkaOrderProcessingSystem.OrderProcessingSystem.serializer;
+
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity.Order;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Compares record size and serialize + deserialize time of the binary and JSON codecs.
+// Excluded from the default build, run with: mvn test -Pbenchmark
+@Tag("benchmark")
+class OrderCodecBenchmarkTest {
+
+    private static final int WARMUP_ITERATIONS = 200_000;
+
+    private static final int MEASURED_ITERATIONS = 1_000_000;
+
+    private final Order order = new Order("3f2b8c1e-1001", "Laptop Pro 14", 3, "PROCESSED");
+
+    @Test
+    void binaryCodec_IsSmallerAndFasterThanJson() {
+        JsonSerializer<Order> jsonSerializer = new JsonSerializer<>();
+        JsonDeserializer<Order> jsonDeserializer = new JsonDeserializer<>(Order.class);
+        jsonDeserializer.configure(Map.of(JsonDeserializer.TRUSTED_PACKAGES, "*"), false);
+
+        Result json = measure("json", jsonSerializer, jsonDeserializer);
+        Result binary = measure("binary", new OrderBinarySerializer(), new OrderBinaryDeserializer());
+
+        assertTrue(binary.recordBytes() < json.recordBytes());
+        assertTrue(binary.nanosPerRecord() < json.nanosPerRecord());
+    }
+
+    private Result measure(String name, Serializer<Order> serializer, Deserializer<Order> deserializer) {
+        // Same calls as the Kafka clients make, including the headers the JSON serializer writes its type into
+        RecordHeaders headers = new RecordHeaders();
+        byte[] data = serializer.serialize("orders", headers, order);
+        assertEquals(order, deserializer.deserialize("orders", headers, data));
+        int headerBytes = 0;
+        for (var header : headers) {
+            headerBytes += header.key().length() + header.value().length;
+        }
+
+        long checksum = run(serializer, deserializer, WARMUP_ITERATIONS);
+        long start = System.nanoTime();
+        checksum += run(serializer, deserializer, MEASURED_ITERATIONS);
+        double nanosPerRecord = (double) (System.nanoTime() - start) / MEASURED_ITERATIONS;
+
+        Result result = new Result(data.length + headerBytes, nanosPerRecord);
+        System.out.printf("%-6s value %3d bytes, headers %3d bytes, %8.1f ns per record (checksum %d)%n",
+                name, data.length, headerBytes, nanosPerRecord, checksum);
+        return result;
+    }
+
+    private long run(Serializer<Order> serializer, Deserializer<Order> deserializer, int iterations) {
+        long checksum = 0;
+        for (int i = 0; i < iterations; i++) {
+            RecordHeaders headers = new RecordHeaders();
+            byte[] data = serializer.serialize("orders", headers, order);
+            checksum += deserializer.deserialize("orders", headers, data).getQuantity();
+        }
+        return checksum;
+    }
+
+    private record Result(int recordBytes, double nanosPerRecord) {
+    }
+}
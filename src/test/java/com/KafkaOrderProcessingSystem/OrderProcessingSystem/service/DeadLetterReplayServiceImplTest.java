@@ -0,0 +1,125 @@
+package com.KafkaOrderProcessingSystem.OrderProcessingSystem.service;
+
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.service.Impl.DeadLetterReplayServiceImpl;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.ProducerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.mockito.Mockito.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+class DeadLetterReplayServiceImplTest {
+
+    private static final TopicPartition DLT_PARTITION = new TopicPartition("orders-dlt", 0);
+
+    @Mock
+    private ConsumerFactory<Object, Object> consumerFactory;
+
+    @Mock
+    private ProducerFactory<Object, Object> producerFactory;
+
+    @Mock
+    private ProducerFactory<Object, Object> replayProducerFactory;
+
+    private MockConsumer<Object, Object> consumer;
+
+    private final MockProducer<Object, Object> producer =
+            new MockProducer<>(true, (topic, key) -> new byte[0], (topic, value) -> (byte[]) value);
+
+    private DeadLetterReplayServiceImpl deadLetterReplayService;
+
+    @BeforeEach
+    void setUp() {
+        consumer = spy(new MockConsumer<>(OffsetResetStrategy.EARLIEST));
+        when(producerFactory.copyWithConfigurationOverride(anyMap())).thenReturn(replayProducerFactory);
+        deadLetterReplayService = new DeadLetterReplayServiceImpl(consumerFactory, producerFactory);
+    }
+
+    @Test
+    void replay_SendsExistingDeadLettersBackAndCommits() {
+        mockDeadLetterTopic(2);
+        // Offset 2 arrives after the replay started and is left for the next one
+        consumer.schedulePollTask(() -> {
+            consumer.addRecord(deadLetter(0, "Laptop"));
+            consumer.addRecord(deadLetter(1, "Phone"));
+            consumer.addRecord(deadLetter(2, "Tablet"));
+        });
+
+        assertEquals(2, deadLetterReplayService.replay(100));
+
+        List<ProducerRecord<Object, Object>> sent = producer.history();
+        assertEquals(2, sent.size());
+        assertEquals("orders", sent.get(0).topic());
+        assertEquals("Laptop", sent.get(0).key());
+        assertArrayEquals(value("Laptop"), (byte[]) sent.get(0).value());
+        assertEquals("Phone", sent.get(1).key());
+        verify(consumer, times(1)).commitSync(Map.of(DLT_PARTITION, new OffsetAndMetadata(2)));
+    }
+
+    @Test
+    void replay_StopsAtMaxRecords() {
+        mockDeadLetterTopic(2);
+        consumer.schedulePollTask(() -> {
+            consumer.addRecord(deadLetter(0, "Laptop"));
+            consumer.addRecord(deadLetter(1, "Phone"));
+        });
+
+        assertEquals(1, deadLetterReplayService.replay(1));
+
+        assertEquals(1, producer.history().size());
+        verify(consumer, times(1)).commitSync(Map.of(DLT_PARTITION, new OffsetAndMetadata(1)));
+    }
+
+    @Test
+    void replay_EmptyTopicSendsNothing() {
+        mockDeadLetterTopic(0);
+
+        assertEquals(0, deadLetterReplayService.replay(100));
+
+        assertTrue(producer.history().isEmpty());
+        verify(consumer, never()).commitSync(anyMap());
+    }
+
+    @Test
+    void replay_RejectsNonPositiveMaxRecords() {
+        assertThrows(RuntimeException.class, () -> deadLetterReplayService.replay(0));
+        verifyNoInteractions(consumerFactory);
+    }
+
+    private void mockDeadLetterTopic(long endOffset) {
+        when(consumerFactory.createConsumer(eq("orders-dlt-replay"), isNull(), isNull(), any(Properties.class)))
+                .thenReturn(consumer);
+        when(replayProducerFactory.createProducer()).thenReturn(producer);
+        consumer.updatePartitions("orders-dlt", List.of(
+                new PartitionInfo("orders-dlt", 0, Node.noNode(), new Node[0], new Node[0])));
+        consumer.updateBeginningOffsets(Map.of(DLT_PARTITION, 0L));
+        consumer.updateEndOffsets(Map.of(DLT_PARTITION, endOffset));
+    }
+
+    private ConsumerRecord<Object, Object> deadLetter(long offset, String productName) {
+        return new ConsumerRecord<>("orders-dlt", 0, offset, productName, value(productName));
+    }
+
+    private byte[] value(String productName) {
+        return ("{\"productName\":\"" + productName + "\"}").getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -1,5 +1,7 @@
 package com.KafkaOrderProcessingSystem.OrderProcessingSystem.service;
 
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.config.KafkaProducerProperties;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.config.OrderProperties;
 import com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity.Order;
 import com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity.OrderStatus;
 import com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity.WarehouseStock;
@@ -7,13 +9,16 @@ import com.KafkaOrderProcessingSystem.OrderProcessingSystem.repository.OrderRepo
 import com.KafkaOrderProcessingSystem.OrderProcessingSystem.repository.WarehouseRepository;
 import com.KafkaOrderProcessingSystem.OrderProcessingSystem.service.Impl.InventoryServiceImpl;
 import com.KafkaOrderProcessingSystem.OrderProcessingSystem.service.Impl.OrderProducerServiceImpl;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils.OrderIdempotencyGuard;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils.OrderPublisher;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils.StockReservations;
 import com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils.WarehouseStockUpdate;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.kafka.core.KafkaTemplate;
 
 import java.util.Optional;
 
@@ -25,7 +30,7 @@ import static org.mockito.Mockito.*;
 class EdgeCaseTest {
 
     @Mock
-    private KafkaTemplate<String, Order> kafkaTemplate;
+    private OrderPublisher orderPublisher;
 
     @Mock
     private OrderRepository orderRepository;
@@ -33,6 +38,18 @@ class EdgeCaseTest {
     @Mock
     private WarehouseRepository warehouseRepository;
 
+    @Spy
+    private KafkaProducerProperties producerProperties = new KafkaProducerProperties();
+
+    @Spy
+    private OrderProperties orderProperties = new OrderProperties();
+
+    @Mock
+    private StockReservations stockReservations;
+
+    @Mock
+    private OrderIdempotencyGuard idempotencyGuard;
+
     @InjectMocks
     private OrderProducerServiceImpl orderProducerService;
 
@@ -59,7 +76,7 @@ class EdgeCaseTest {
         assertDoesNotThrow(() -> orderProducerService.submitOrder(order));
 
         verify(orderRepository, times(1)).save(any(Order.class));
-        verify(kafkaTemplate, times(1)).send(anyString(), anyString(), any(Order.class));
+        verify(orderPublisher, times(1)).publish(anyString(), any(Order.class));
     }
 
     @Test
@@ -98,7 +115,7 @@ class EdgeCaseTest {
 
         assertTrue(exception.getMessage().contains("Order Quantity exceeds available stock"));
         verify(orderRepository, times(1)).save(any(Order.class));
-        verify(kafkaTemplate, never()).send(anyString(), anyString(), any(Order.class));
+        verify(orderPublisher, never()).publish(anyString(), any(Order.class));
     }
 
     @Test
@@ -157,7 +174,7 @@ class EdgeCaseTest {
         assertDoesNotThrow(() -> orderProducerService.submitOrder(order));
 
         verify(orderRepository, times(1)).save(any(Order.class));
-        verify(kafkaTemplate, times(1)).send(anyString(), anyString(), any(Order.class));
+        verify(orderPublisher, times(1)).publish(anyString(), any(Order.class));
     }
 
     @Test
@@ -177,7 +194,7 @@ class EdgeCaseTest {
         assertDoesNotThrow(() -> orderProducerService.submitOrder(order));
 
         verify(orderRepository, times(1)).save(any(Order.class));
-        verify(kafkaTemplate, times(1)).send(anyString(), anyString(), any(Order.class));
+        verify(orderPublisher, times(1)).publish(anyString(), any(Order.class));
     }
 
     @Test
@@ -197,7 +214,7 @@ class EdgeCaseTest {
         assertDoesNotThrow(() -> orderProducerService.submitOrder(order));
 
         verify(orderRepository, times(1)).save(any(Order.class));
-        verify(kafkaTemplate, times(1)).send(anyString(), anyString(), any(Order.class));
+        verify(orderPublisher, times(1)).publish(anyString(), any(Order.class));
     }
 
     @Test
@@ -223,9 +240,8 @@ class EdgeCaseTest {
     @Test
     void testWarehouseStockUpdate_ResultsInZeroStock() {
         // Given: Stock will be reduced to zero
-        WarehouseStock stock = new WarehouseStock("Camera", 5);
-        when(warehouseRepository.findById("Camera")).thenReturn(Optional.of(stock));
-        when(warehouseRepository.save(any(WarehouseStock.class))).thenReturn(stock);
+        when(warehouseRepository.decrementStockIfAvailable("Camera", 5))
+                .thenReturn(Optional.of(new WarehouseStock("Camera", 0)));
 
         Order order = Order.builder()
                 .orderId("EDGE010")
@@ -235,19 +251,18 @@ class EdgeCaseTest {
                 .build();
 
         // When: Process order
-        warehouseStockUpdate.processOrder(order);
+        boolean updated = warehouseStockUpdate.processOrder(order);
 
-        // Then: Stock should be zero
-        assertEquals(0, stock.getAvailableQuantity());
-        verify(warehouseRepository, times(1)).save(stock);
+        // Then: Exact match is allowed by the conditional decrement
+        assertTrue(updated);
+        verify(warehouseRepository, never()).save(any(WarehouseStock.class));
     }
 
     @Test
-    void testWarehouseStockUpdate_ResultsInNegativeStock() {
-        // Given: Order quantity exceeds stock (data inconsistency)
-        WarehouseStock stock = new WarehouseStock("Headphones", 3);
-        when(warehouseRepository.findById("Headphones")).thenReturn(Optional.of(stock));
-        when(warehouseRepository.save(any(WarehouseStock.class))).thenReturn(stock);
+    void testWarehouseStockUpdate_NeverResultsInNegativeStock() {
+        // Given: Order quantity exceeds stock (data inconsistency), so the conditional decrement matches nothing
+        when(warehouseRepository.decrementStockIfAvailable("Headphones", 5)).thenReturn(Optional.empty());
+        when(warehouseRepository.existsById("Headphones")).thenReturn(true);
 
         Order order = Order.builder()
                 .orderId("EDGE011")
@@ -257,11 +272,11 @@ class EdgeCaseTest {
                 .build();
 
         // When: Process order (shouldn't happen in production but tests robustness)
-        warehouseStockUpdate.processOrder(order);
+        boolean updated = warehouseStockUpdate.processOrder(order);
 
-        // Then: Stock becomes negative (indicates need for better validation)
-        assertEquals(-2, stock.getAvailableQuantity());
-        verify(warehouseRepository, times(1)).save(stock);
+        // Then: Stock is left untouched instead of going negative
+        assertFalse(updated);
+        verify(warehouseRepository, never()).save(any(WarehouseStock.class));
     }
 
     @Test
@@ -280,16 +295,15 @@ class EdgeCaseTest {
     @Test
     void testUpdateInventory_WithNegativeQuantityChange() {
         // Given: Existing product
-        WarehouseStock existingStock = new WarehouseStock("ExistingProduct", 20);
-        when(warehouseRepository.findById("ExistingProduct")).thenReturn(Optional.of(existingStock));
-        when(warehouseRepository.save(any(WarehouseStock.class))).thenReturn(existingStock);
+        when(warehouseRepository.adjustStock("ExistingProduct", -5))
+                .thenReturn(Optional.of(new WarehouseStock("ExistingProduct", 15)));
 
         // When: Update with negative quantity (reduction)
         WarehouseStock updated = inventoryService.updateInventory("ExistingProduct", -5);
 
-        // Then: Quantity should be reduced
+        // Then: Quantity should be reduced, atomically in Mongo
         assertEquals(15, updated.getAvailableQuantity());
-        verify(warehouseRepository, times(1)).save(existingStock);
+        verify(warehouseRepository, never()).save(any());
     }
 
     @Test
@@ -339,7 +353,7 @@ class EdgeCaseTest {
 
         // Then: Both should be processed (MongoDB will overwrite)
         verify(orderRepository, times(2)).save(any(Order.class));
-        verify(kafkaTemplate, times(2)).send(anyString(), anyString(), any(Order.class));
+        verify(orderPublisher, times(2)).publish(anyString(), any(Order.class));
     }
 }
 
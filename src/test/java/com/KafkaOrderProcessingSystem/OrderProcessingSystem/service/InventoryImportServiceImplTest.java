@@ -0,0 +1,100 @@
+package com.KafkaOrderProcessingSystem.OrderProcessingSystem.service;
+
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.config.InventoryProperties;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.dto.InventoryImportDTO;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity.WarehouseStock;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.repository.WarehouseRepository;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.service.Impl.InventoryImportServiceImpl;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.Mockito.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+class InventoryImportServiceImplTest {
+
+    @Mock
+    private WarehouseRepository warehouseRepository;
+
+    private InventoryProperties inventoryProperties;
+
+    private InventoryImportServiceImpl inventoryImportService;
+
+    // Product names of every bulk insert, copied because the chunk list is reused
+    private final List<List<String>> inserted = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        inventoryProperties = new InventoryProperties();
+        inventoryProperties.getBulkImport().setChunkSize(2);
+        ObjectMapper objectMapper = new ObjectMapper().enable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        inventoryImportService = new InventoryImportServiceImpl(warehouseRepository, objectMapper,
+                Validation.buildDefaultValidatorFactory().getValidator(), inventoryProperties);
+    }
+
+    @Test
+    void importInventory_Csv_ValidatesRowsAndInsertsInChunks() throws Exception {
+        when(warehouseRepository.insertStocks(anyList())).thenAnswer(invocation -> {
+            List<WarehouseStock> stocks = invocation.getArgument(0);
+            inserted.add(stocks.stream().map(WarehouseStock::getProductName).toList());
+            // Mouse already exists
+            return stocks.size() == 2 ? Map.of(1, "The product name already exists") : Map.of();
+        });
+        String csv = """
+                productName,availableQuantity
+                Laptop,10
+                Mouse,abc
+                Monitor 2,5
+                Keyboard,0
+                Mouse,20
+                Printer,3
+                """;
+
+        InventoryImportDTO result = inventoryImportService.importInventory(stream(csv), InventoryImportService.Format.CSV);
+
+        assertEquals(List.of(List.of("Laptop", "Mouse"), List.of("Printer")), inserted);
+        assertEquals(2, result.getImported());
+        assertEquals(4, result.getRejected());
+        assertEquals(List.of(3L, 4L, 5L, 6L), result.getErrors().stream().map(error -> error.getLine()).toList());
+        assertEquals("product name should not be number", result.getErrors().get(1).getMessage());
+        assertEquals("Quantity must be at least 1", result.getErrors().get(2).getMessage());
+        assertEquals("Mouse", result.getErrors().get(3).getProductName());
+        assertEquals("The product name already exists", result.getErrors().get(3).getMessage());
+    }
+
+    @Test
+    void importInventory_Ndjson_CapsReportedErrors() throws Exception {
+        inventoryProperties.getBulkImport().setMaxReportedErrors(1);
+        when(warehouseRepository.insertStocks(anyList())).thenReturn(Map.of());
+        String ndjson = """
+                {"productName":"Laptop","availableQuantity":10}
+                {"productName":"Mouse","availableQuantity":20,"colour":"black"}
+                not json
+                """;
+
+        InventoryImportDTO result = inventoryImportService.importInventory(stream(ndjson), InventoryImportService.Format.NDJSON);
+
+        assertEquals(1, result.getImported());
+        assertEquals(2, result.getRejected());
+        assertEquals(1, result.getErrors().size());
+        assertEquals(2, result.getErrors().get(0).getLine());
+        verify(warehouseRepository, times(1)).insertStocks(anyList());
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
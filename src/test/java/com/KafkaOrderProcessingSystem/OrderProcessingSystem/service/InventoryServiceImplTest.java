@@ -1,19 +1,33 @@
 package com.KafkaOrderProcessingSystem.OrderProcessingSystem.service;
 
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.dto.StockAdjustmentDTO;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.dto.StockCursorPageDTO;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.dto.WarehouseStockDTO;
 import com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity.WarehouseStock;
 import com.KafkaOrderProcessingSystem.OrderProcessingSystem.repository.WarehouseRepository;
 import com.KafkaOrderProcessingSystem.OrderProcessingSystem.service.Impl.InventoryServiceImpl;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils.StockCursor;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils.StockReservations;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils.WarehouseStockCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.*;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
 
 import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -24,6 +38,15 @@ public class InventoryServiceImplTest {
     @Mock
     private WarehouseRepository warehouseRepository;
 
+    @Mock
+    private StockReservations stockReservations;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Mock
+    private WarehouseStockCache warehouseStockCache;
+
     @InjectMocks
     private InventoryServiceImpl inventoryService;
 
@@ -69,26 +92,151 @@ public class InventoryServiceImplTest {
         verify(warehouseRepository, times(1)).findAll(any(Pageable.class));
     }
 
+    @Test
+    void testGetInventoryAfter_FullPage_ReturnsCursorOfLastProduct() {
+        List<WarehouseStock> found = List.of(new WarehouseStock("Laptop", 10),
+                new WarehouseStock("Mouse", 20), new WarehouseStock("Printer", 5));
+        when(warehouseRepository.findStockPageAfter("productName", null, 3)).thenReturn(found);
+
+        StockCursorPageDTO result = inventoryService.getInventoryAfter("", 2, "productName");
+
+        assertEquals(2, result.getSize());
+        assertEquals("Mouse", result.getContent().get(1).getProductName());
+        assertEquals(new StockCursor("productName", 20, "Mouse"), StockCursor.decode(result.getNextCursor()));
+        verify(warehouseRepository, never()).count();
+    }
+
+    @Test
+    void testGetInventoryAfter_CursorKeepsItsSortKey_LastPageHasNoCursor() {
+        StockCursor after = new StockCursor("availableQuantity", 10, "Laptop");
+        when(warehouseRepository.findStockPageAfter("availableQuantity", after, 3))
+                .thenReturn(List.of(new WarehouseStock("Mouse", 20)));
+
+        StockCursorPageDTO result = inventoryService.getInventoryAfter(after.encode(), 2, "productName");
+
+        assertEquals(1, result.getSize());
+        assertNull(result.getNextCursor());
+    }
+
+    @Test
+    void testGetInventoryAfter_InvalidCursorOrSortKey_ThrowsException() {
+        assertThrows(RuntimeException.class, () -> inventoryService.getInventoryAfter("not a cursor", 10, "productName"));
+        assertThrows(RuntimeException.class, () -> inventoryService.getInventoryAfter("", 10, "appliedOffsets"));
+        assertThrows(IllegalArgumentException.class, () -> inventoryService.getInventoryAfter("", 0, "productName"));
+        verify(warehouseRepository, never()).findStockPageAfter(any(), any(), anyInt());
+    }
+
+    @Test
+    void testExportInventory_WritesOneLinePerProductAndClosesCursor() throws Exception {
+        AtomicBoolean closed = new AtomicBoolean();
+        when(warehouseRepository.streamAllStock()).thenReturn(Stream.of(productStock, new WarehouseStock("Mouse", 20))
+                .onClose(() -> closed.set(true)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        inventoryService.exportInventory(out);
+
+        assertEquals("{\"productName\":\"Laptop\",\"availableQuantity\":10}\n"
+                        + "{\"productName\":\"Mouse\",\"availableQuantity\":20}\n",
+                out.toString(StandardCharsets.UTF_8));
+        assertTrue(closed.get());
+        verify(warehouseRepository, never()).findAll(any(Pageable.class));
+    }
+
     @Test
     void testUpdateInventory_Success() {
-        when(warehouseRepository.findById("Laptop")).thenReturn(Optional.of(productStock));
-        when(warehouseRepository.save(any(WarehouseStock.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(warehouseRepository.adjustStock("Laptop", 5)).thenReturn(Optional.of(new WarehouseStock("Laptop", 15)));
 
         WarehouseStock updated = inventoryService.updateInventory("Laptop",  5);
 
+        // One atomic $inc, no read-modify-write that could lose a concurrent change
         assertEquals(15, updated.getAvailableQuantity());
-        verify(warehouseRepository, times(1)).findById("Laptop");
-        verify(warehouseRepository, times(1)).save(productStock);
+        verify(warehouseRepository, never()).findById(anyString());
+        verify(warehouseRepository, never()).save(any());
+        verify(stockReservations, times(1)).adjust("Laptop", 5);
+    }
+
+    @Test
+    void testUpdateInventory_DecrementBeyondStock_ThrowsException() {
+        when(warehouseRepository.adjustStock("Laptop", -20)).thenReturn(Optional.empty());
+        when(warehouseRepository.existsById("Laptop")).thenReturn(true);
+
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> inventoryService.updateInventory("Laptop", -20));
+
+        assertEquals("Adjustment exceeds available stock of Laptop", exception.getMessage());
+        verify(stockReservations, never()).adjust(anyString(), anyInt());
+    }
+
+    @Test
+    void testAdjustInventory_OneIncrementPerProduct_ResultPerAdjustment() {
+        when(warehouseRepository.findAllById(Set.of("Laptop", "Mouse")))
+                .thenReturn(List.of(new WarehouseStock("Laptop", 17)));
+
+        List<WarehouseStockDTO> results = inventoryService.adjustInventory(List.of(
+                new StockAdjustmentDTO("Laptop", 5),
+                new StockAdjustmentDTO("Mouse", 3),
+                new StockAdjustmentDTO("Laptop", 2)));
+
+        verify(warehouseRepository, times(1)).adjustStocks(Map.of("Laptop", 7, "Mouse", 3));
+        verify(stockReservations, times(1)).adjust("Laptop", 7);
+        verify(stockReservations, never()).adjust(eq("Mouse"), anyInt());
+        verify(warehouseRepository, never()).save(any());
+
+        assertEquals(3, results.size());
+        assertEquals(17, results.get(0).getAvailableQuantity());
+        assertEquals("Product not found in inventory: Mouse", results.get(1).getMessage());
+        assertEquals("Stock updated successfully", results.get(2).getMessage());
+    }
+
+    @Test
+    void testAdjustInventory_RefusedDecrementReportedApartFromNotFound() {
+        when(warehouseRepository.adjustStocks(Map.of("Laptop", -20, "Mouse", -1))).thenReturn(Set.of("Laptop", "Mouse"));
+        when(warehouseRepository.findAllById(Set.of("Laptop", "Mouse"))).thenReturn(List.of(productStock));
+
+        List<WarehouseStockDTO> results = inventoryService.adjustInventory(List.of(
+                new StockAdjustmentDTO("Laptop", -20),
+                new StockAdjustmentDTO("Mouse", -1)));
+
+        assertEquals(10, results.get(0).getAvailableQuantity());
+        assertEquals("Adjustment exceeds available stock: 10", results.get(0).getMessage());
+        assertEquals("Product not found in inventory: Mouse", results.get(1).getMessage());
+        verify(stockReservations, never()).adjust(anyString(), anyInt());
+    }
+
+    @Test
+    void testLookupInventory_CacheFirstThenOneQueryForMisses() {
+        WarehouseStock mouse = new WarehouseStock("Mouse", 20);
+        // Only Laptop is cached
+        when(warehouseStockCache.get(anyString()))
+                .thenAnswer(invocation -> "Laptop".equals(invocation.getArgument(0)) ? productStock : null);
+        when(warehouseRepository.findAllById(Set.of("Mouse", "Printer"))).thenReturn(List.of(mouse));
+
+        List<WarehouseStockDTO> results = inventoryService.lookupInventory(List.of("Laptop", "Mouse", "Printer"));
+
+        assertEquals(List.of(10, 20, 0), results.stream().map(WarehouseStockDTO::getAvailableQuantity).toList());
+        assertEquals("Product not found in inventory: Printer", results.get(2).getMessage());
+        verify(warehouseStockCache, times(1)).put(mouse);
+        verify(warehouseRepository, never()).findById(any());
+    }
+
+    @Test
+    void testLookupInventory_AllCached_SkipsMongo() {
+        when(warehouseStockCache.get("Laptop")).thenReturn(productStock);
+
+        List<WarehouseStockDTO> results = inventoryService.lookupInventory(List.of("Laptop"));
+
+        assertEquals(10, results.get(0).getAvailableQuantity());
+        verifyNoInteractions(warehouseRepository);
     }
 
     @Test
     void testUpdateInventory_ProductNotFound_ThrowsException() {
-        when(warehouseRepository.findById("Laptop")).thenReturn(Optional.empty());
+        when(warehouseRepository.adjustStock("Laptop", 5)).thenReturn(Optional.empty());
 
         RuntimeException exception = assertThrows(RuntimeException.class,
                 () -> inventoryService.updateInventory("Laptop",  5));
 
         assertTrue(exception.getMessage().contains("Product not found in inventory"));
-        verify(warehouseRepository, never()).save(any());
+        verify(stockReservations, never()).adjust(anyString(), anyInt());
     }
 }
@@ -0,0 +1,127 @@
+package com.KafkaOrderProcessingSystem.OrderProcessingSystem.service;
+
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils.OrderIdGenerator;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils.OrderIdMode;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderIdGeneratorTest {
+
+    private static final long NOW = Instant.parse("2026-01-15T10:00:00Z").toEpochMilli();
+
+    @Test
+    void nextId_SortsByCreationTimeAndEncodesIt() {
+        ManualClock clock = new ManualClock(NOW);
+        OrderIdGenerator generator = new OrderIdGenerator(7, clock);
+
+        String first = generator.nextId();
+        clock.millis = NOW + 1;
+        String second = generator.nextId();
+
+        assertEquals(16, first.length());
+        assertTrue(first.compareTo(second) < 0);
+        assertEquals(Instant.ofEpochMilli(NOW), OrderIdGenerator.timestampOf(first));
+        assertEquals(Instant.ofEpochMilli(NOW + 1), OrderIdGenerator.timestampOf(second));
+        assertEquals("07", first.substring(10, 12));
+    }
+
+    @Test
+    void nextId_SameMillisecondAndClockGoingBack_StillIncreasing() {
+        ManualClock clock = new ManualClock(NOW);
+        OrderIdGenerator generator = new OrderIdGenerator(1, clock);
+
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            if (i == 50_000) {
+                clock.millis = NOW - 1000;
+            }
+            ids.add(generator.nextId());
+        }
+
+        for (int i = 1; i < ids.size(); i++) {
+            assertTrue(ids.get(i - 1).compareTo(ids.get(i)) < 0, "id " + i + " is not after the previous one");
+        }
+    }
+
+    @Test
+    void nextId_ConcurrentCallers_NoCollisions() throws Exception {
+        OrderIdGenerator generator = new OrderIdGenerator(3, Clock.systemUTC());
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (int t = 0; t < 8; t++) {
+                executor.submit(() -> {
+                    for (int i = 0; i < 20_000; i++) {
+                        ids.add(generator.nextId());
+                    }
+                });
+            }
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        }
+
+        assertEquals(160_000, ids.size());
+    }
+
+    @Test
+    void differentNodes_NeverCollide() {
+        Clock clock = Clock.fixed(Instant.ofEpochMilli(NOW), ZoneOffset.UTC);
+        Set<String> ids = new HashSet<>();
+        for (int node = 0; node <= OrderIdGenerator.MAX_NODE_ID; node++) {
+            ids.add(new OrderIdGenerator(node, clock).nextId());
+        }
+        assertEquals(OrderIdGenerator.MAX_NODE_ID + 1, ids.size());
+        assertThrows(IllegalArgumentException.class, () -> new OrderIdGenerator(OrderIdGenerator.MAX_NODE_ID + 1, clock));
+    }
+
+    @Test
+    void idModes_DecideWhenToGenerate() {
+        assertFalse(OrderIdMode.CLIENT.generates(null));
+        assertTrue(OrderIdMode.IF_ABSENT.generates(" "));
+        assertFalse(OrderIdMode.IF_ABSENT.generates("1001"));
+        assertTrue(OrderIdMode.ALWAYS.generates("1001"));
+    }
+
+    private static class ManualClock extends Clock {
+
+        private volatile long millis;
+
+        private ManualClock(long millis) {
+            this.millis = millis;
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
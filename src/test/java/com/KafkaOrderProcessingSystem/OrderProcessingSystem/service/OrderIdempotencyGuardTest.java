@@ -0,0 +1,95 @@
+package com.KafkaOrderProcessingSystem.OrderProcessingSystem.service;
+
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.config.OrderProperties;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity.Order;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.repository.OrderRepository;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils.OrderIdempotencyGuard;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+import static org.mockito.Mockito.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderIdempotencyGuardTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    private OrderIdempotencyGuard idempotencyGuard;
+
+    @BeforeEach
+    void setUp() {
+        OrderProperties orderProperties = new OrderProperties();
+        orderProperties.getIdempotency().setExpectedInsertions(1000);
+        orderProperties.getIdempotency().setRecentCacheSize(10);
+        idempotencyGuard = new OrderIdempotencyGuard(orderRepository, orderProperties);
+    }
+
+    @Test
+    void findAccepted_NewIdSkipsMongo() {
+        assertTrue(idempotencyGuard.isDefinitelyNew("1001"));
+        assertTrue(idempotencyGuard.findAccepted("1001").isEmpty());
+        verifyNoInteractions(orderRepository);
+    }
+
+    @Test
+    void findAccepted_RememberedOrderServedFromMemory() {
+        Order order = new Order("1001", "Laptop", 2, "PROCESSED");
+        idempotencyGuard.remember(order);
+
+        assertFalse(idempotencyGuard.isDefinitelyNew("1001"));
+        assertEquals(Optional.of(order), idempotencyGuard.findAccepted("1001"));
+        verifyNoInteractions(orderRepository);
+    }
+
+    @Test
+    void remember_IgnoresFailedOrders() {
+        idempotencyGuard.remember(new Order("1001", "Laptop", 2, "FAILED"));
+
+        assertTrue(idempotencyGuard.isDefinitelyNew("1001"));
+    }
+
+    @Test
+    void findAccepted_FallsBackToMongoOnceEvictedFromRecentCache() {
+        for (int i = 0; i < 1000; i++) {
+            idempotencyGuard.remember(new Order("id-" + i, "Laptop", 1, "PROCESSED"));
+        }
+        when(orderRepository.findAllById(anyList())).thenAnswer(invocation -> {
+            List<String> ids = invocation.getArgument(0);
+            return ids.stream().map(id -> new Order(id, "Laptop", 1, "PROCESSED")).toList();
+        });
+
+        // Every remembered id is still known to the filter, even if the recent cache dropped it
+        List<String> ids = IntStream.range(0, 1000).mapToObj(i -> "id-" + i).toList();
+        Map<String, Order> accepted = idempotencyGuard.findAccepted(ids);
+
+        assertEquals(1000, accepted.size());
+        verify(orderRepository, times(1)).findAllById(anyList());
+    }
+
+    @Test
+    void bloomFilter_FalsePositiveRateStaysNearConfiguredRate() {
+        for (int i = 0; i < 1000; i++) {
+            idempotencyGuard.remember(new Order("accepted-" + i, "Laptop", 1, "PROCESSED"));
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (!idempotencyGuard.isDefinitelyNew("other-" + i)) {
+                falsePositives++;
+            }
+        }
+
+        // Configured at 1%, allow some slack for the hash spread
+        assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+    }
+}
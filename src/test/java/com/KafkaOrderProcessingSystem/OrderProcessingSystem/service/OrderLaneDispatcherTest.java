@@ -0,0 +1,179 @@
+package com.KafkaOrderProcessingSystem.OrderProcessingSystem.service;
+
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.config.KafkaConsumerProperties;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity.Order;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils.OrderLaneDispatcher;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils.WarehouseStockUpdate;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.listener.ConsumerRecordRecoverer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderLaneDispatcherTest {
+
+    private static final TopicPartition PARTITION = new TopicPartition("orders", 0);
+
+    @Mock
+    private WarehouseStockUpdate warehouseStockUpdate;
+
+    @Mock
+    private ConsumerRecordRecoverer deadLetterRecoverer;
+
+    @Mock
+    private Consumer<String, Order> consumer;
+
+    private KafkaConsumerProperties consumerProperties;
+
+    private OrderLaneDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        consumerProperties = new KafkaConsumerProperties();
+        consumerProperties.getParallel().setLanes(4);
+        consumerProperties.getParallel().setCommitInterval(Duration.ZERO);
+        dispatcher = new OrderLaneDispatcher(warehouseStockUpdate, deadLetterRecoverer, consumerProperties);
+        lenient().when(consumer.assignment()).thenReturn(Set.of(PARTITION));
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        dispatcher.shutdown();
+    }
+
+    // Product names that land on different lanes, so the test does not depend on how names happen to hash
+    private List<String> productsOnDistinctLanes(int count) {
+        List<String> products = new ArrayList<>();
+        Set<Integer> usedLanes = new HashSet<>();
+        for (int i = 0; products.size() < count; i++) {
+            String product = "Product" + i;
+            if (usedLanes.add(dispatcher.laneOf(product))) {
+                products.add(product);
+            }
+        }
+        return products;
+    }
+
+    private static void await(CountDownLatch latch) throws InterruptedException {
+        assertTrue(latch.await(5, TimeUnit.SECONDS), "timed out waiting for the lanes");
+    }
+
+    private ConsumerRecord<String, Order> record(long offset, String productName) {
+        return new ConsumerRecord<>("orders", 0, offset, productName,
+                new Order("O" + offset, productName, 1, "PROCESSED"));
+    }
+
+    @Test
+    void Dispatch_KeepsOrderPerProductTest() throws InterruptedException {
+        List<String> products = productsOnDistinctLanes(2);
+        String laptop = products.get(0);
+        String phone = products.get(1);
+        CountDownLatch phoneDone = new CountDownLatch(1);
+        List<Long> laptopOffsets = new CopyOnWriteArrayList<>();
+        when(warehouseStockUpdate.processRecord(any())).thenAnswer(invocation -> {
+            ConsumerRecord<String, Order> record = invocation.getArgument(0);
+            if (laptop.equals(record.value().getProductName())) {
+                // The first laptop order only finishes once the phone order ran on its own lane
+                if (record.offset() == 0) {
+                    await(phoneDone);
+                }
+                laptopOffsets.add(record.offset());
+            } else {
+                phoneDone.countDown();
+            }
+            return true;
+        });
+
+        dispatcher.dispatch(List.of(record(0, laptop), record(1, phone), record(2, laptop),
+                record(3, laptop)), consumer);
+        dispatcher.onPartitionsRevokedBeforeCommit(consumer, Set.of(PARTITION));
+
+        assertEquals(List.of(0L, 2L, 3L), laptopOffsets);
+        verify(warehouseStockUpdate, times(4)).processRecord(any());
+        verify(consumer).commitSync(Map.of(PARTITION, new OffsetAndMetadata(4)));
+        assertEquals(0, dispatcher.inFlight());
+    }
+
+    @Test
+    void Commit_StopsBeforeUnfinishedRecordTest() throws InterruptedException {
+        List<String> products = productsOnDistinctLanes(3);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch laterRecordsDone = new CountDownLatch(2);
+        when(warehouseStockUpdate.processRecord(any())).thenAnswer(invocation -> {
+            ConsumerRecord<String, Order> record = invocation.getArgument(0);
+            if (record.offset() == 0) {
+                await(release);
+            } else {
+                laterRecordsDone.countDown();
+            }
+            return true;
+        });
+
+        dispatcher.dispatch(List.of(record(0, products.get(0)), record(1, products.get(1)),
+                record(2, products.get(2))), consumer);
+        await(laterRecordsDone);
+        dispatcher.commitIfDue(consumer);
+
+        // Offsets 1 and 2 are done, but committing past the running offset 0 could lose it
+        verify(consumer, never()).commitSync(anyMap());
+
+        release.countDown();
+        dispatcher.onPartitionsRevokedBeforeCommit(consumer, Set.of(PARTITION));
+
+        verify(consumer).commitSync(Map.of(PARTITION, new OffsetAndMetadata(3)));
+    }
+
+    @Test
+    void Dispatch_FailedRecordIsDeadLetteredTest() {
+        RuntimeException failure = new RuntimeException("Product not found: Tablet");
+        ConsumerRecord<String, Order> failing = record(0, "Tablet");
+        when(warehouseStockUpdate.processRecord(any())).thenAnswer(invocation -> {
+            ConsumerRecord<String, Order> record = invocation.getArgument(0);
+            if (record.offset() == 0) {
+                throw failure;
+            }
+            return true;
+        });
+
+        dispatcher.dispatch(List.of(failing, record(1, "Tablet")), consumer);
+        dispatcher.onPartitionsRevokedBeforeCommit(consumer, Set.of(PARTITION));
+
+        verify(deadLetterRecoverer).accept(failing, failure);
+        verify(consumer).commitSync(Map.of(PARTITION, new OffsetAndMetadata(2)));
+    }
+
+    @Test
+    void Dispatch_PausesWhenTooManyRecordsInFlightTest() throws InterruptedException {
+        consumerProperties.getParallel().setMaxInFlight(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(warehouseStockUpdate.processRecord(any())).thenAnswer(invocation -> {
+            await(release);
+            return true;
+        });
+
+        dispatcher.dispatch(List.of(record(0, "Laptop")), consumer);
+
+        verify(consumer).pause(Set.of(PARTITION));
+        release.countDown();
+    }
+}
@@ -0,0 +1,91 @@
+package com.KafkaOrderProcessingSystem.OrderProcessingSystem.service;
+
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.config.KafkaProducerProperties;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.config.OrderProperties;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity.Order;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.repository.OrderRepository;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils.OrderOutboxRelay;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.Mockito.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderOutboxRelayTest {
+
+    @Mock
+    private KafkaTemplate<String, Order> kafkaTemplate;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    private OrderOutboxRelay outboxRelay;
+
+    private final Order laptop = new Order("1001", "Laptop", 2, "PROCESSED");
+
+    private final Order phone = new Order("1002", "Phone", 1, "PROCESSED");
+
+    @BeforeEach
+    void setUp() {
+        OrderProperties orderProperties = new OrderProperties();
+        orderProperties.getOutbox().setEnabled(true);
+        orderProperties.getOutbox().setBatchSize(2);
+        outboxRelay = new OrderOutboxRelay(kafkaTemplate, orderRepository, new KafkaProducerProperties(), orderProperties);
+    }
+
+    @Test
+    void relayBatch_EmptyOutboxSendsNothing() {
+        when(orderRepository.findOutboxBatch(2)).thenReturn(List.of());
+
+        assertFalse(outboxRelay.relayBatch());
+
+        verifyNoInteractions(kafkaTemplate);
+        verify(orderRepository, never()).clearOutbox(any());
+    }
+
+    @Test
+    void relayBatch_AcknowledgedOrdersAreCleared() {
+        when(orderRepository.findOutboxBatch(2)).thenReturn(List.of(laptop, phone));
+        when(kafkaTemplate.send("orders", "1001", laptop)).thenReturn(CompletableFuture.completedFuture(null));
+        when(kafkaTemplate.send("orders", "1002", phone)).thenReturn(CompletableFuture.completedFuture(null));
+
+        // A full batch means more orders may be waiting
+        assertTrue(outboxRelay.relayBatch());
+
+        verify(orderRepository, times(1)).clearOutbox(List.of("1001", "1002"));
+    }
+
+    @Test
+    void relayBatch_FailedSendStaysInOutbox() {
+        when(orderRepository.findOutboxBatch(2)).thenReturn(List.of(laptop, phone));
+        when(kafkaTemplate.send("orders", "1001", laptop))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("Broker unavailable")));
+        when(kafkaTemplate.send("orders", "1002", phone)).thenReturn(CompletableFuture.completedFuture(null));
+
+        assertFalse(outboxRelay.relayBatch());
+
+        verify(orderRepository, times(1)).clearOutbox(List.of("1002"));
+        // Not marked FAILED, the next run sends it again
+        assertEquals("PROCESSED", laptop.getStatus());
+    }
+
+    @Test
+    void relay_DrainsFullBatchesUntilOutboxIsEmpty() {
+        when(orderRepository.findOutboxBatch(2)).thenReturn(List.of(laptop, phone), List.of());
+        when(kafkaTemplate.send(eq("orders"), anyString(), any(Order.class)))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        outboxRelay.relay();
+
+        verify(orderRepository, times(2)).findOutboxBatch(2);
+        verify(orderRepository, times(1)).clearOutbox(any());
+    }
+}
@@ -1,19 +1,33 @@
 package com.KafkaOrderProcessingSystem.OrderProcessingSystem.service;
 
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.dto.OrderResponseDTO;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.config.KafkaProducerProperties;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.config.OrderProperties;
 import com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity.Order;
 import com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity.WarehouseStock;
 import com.KafkaOrderProcessingSystem.OrderProcessingSystem.repository.OrderRepository;
 import com.KafkaOrderProcessingSystem.OrderProcessingSystem.repository.WarehouseRepository;
 import com.KafkaOrderProcessingSystem.OrderProcessingSystem.service.Impl.OrderProducerServiceImpl;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils.OrderIdGenerator;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils.OrderIdMode;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils.OrderKeyStrategy;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils.OrderIdempotencyGuard;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils.OrderPublisher;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils.StockReservations;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.kafka.core.KafkaTemplate;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -22,7 +36,7 @@ import static org.junit.jupiter.api.Assertions.*;
 public class OrderProducerServiceImplTest {
 
     @Mock
-    private KafkaTemplate<String, Order> kafkaTemplate;
+    private OrderPublisher orderPublisher;
 
     @Mock
     private OrderRepository orderRepository;
@@ -30,6 +44,21 @@ public class OrderProducerServiceImplTest {
     @Mock
     private WarehouseRepository warehouseRepository;
 
+    @Spy
+    private KafkaProducerProperties producerProperties = new KafkaProducerProperties();
+
+    @Spy
+    private OrderProperties orderProperties = new OrderProperties();
+
+    @Mock
+    private StockReservations stockReservations;
+
+    @Mock
+    private OrderIdempotencyGuard idempotencyGuard;
+
+    @Mock
+    private OrderIdGenerator orderIdGenerator;
+
     @InjectMocks
     private OrderProducerServiceImpl orderProducerService;
 
@@ -56,7 +85,18 @@ public class OrderProducerServiceImplTest {
         orderProducerService.submitOrder(order);
         assertEquals("PROCESSED", order.getStatus());
         verify(orderRepository, times(1)).save(order);
-        verify(kafkaTemplate, times(1)).send("orders", order.getOrderId(), order);
+        verify(orderPublisher, times(1)).publish(order.getOrderId(), order);
+    }
+
+    @Test
+    void testSubmitOrder_KeyedByProductName() {
+        producerProperties.setKeyStrategy(OrderKeyStrategy.PRODUCT_NAME);
+        when(warehouseRepository.findById(order.getProductName())).thenReturn(Optional.of(warehouseStock));
+
+        orderProducerService.submitOrder(order);
+
+        // Every order of a product lands on the same partition
+        verify(orderPublisher, times(1)).publish("ProductA", order);
     }
 
     @Test
@@ -70,7 +110,7 @@ public class OrderProducerServiceImplTest {
 
         assertEquals("Out of Stock", exception.getMessage());
         verify(orderRepository, times(1)).save(order);
-        verify(kafkaTemplate, never()).send(any(), any(), any());
+        verify(orderPublisher, never()).publish(any(), any());
     }
 
     @Test
@@ -83,7 +123,7 @@ public class OrderProducerServiceImplTest {
 
         assertEquals("Product not found", exception.getMessage());
         verify(orderRepository, never()).save(any());
-        verify(kafkaTemplate, never()).send(any(), any(), any());
+        verify(orderPublisher, never()).publish(any(), any());
     }
 
     @Test
@@ -97,7 +137,7 @@ public class OrderProducerServiceImplTest {
 
         assertEquals("Order Quantity exceeds available stock: 3", exception.getMessage());
         verify(orderRepository, times(1)).save(order);
-        verify(kafkaTemplate, never()).send(any(), any(), any());
+        verify(orderPublisher, never()).publish(any(), any());
     }
 
     @Test
@@ -106,7 +146,7 @@ public class OrderProducerServiceImplTest {
                 .thenReturn(Optional.of(warehouseStock));
 
         doThrow(new RuntimeException("Kafka error"))
-                .when(kafkaTemplate).send(anyString(), anyString(), any(Order.class));
+                .when(orderPublisher).publish(anyString(), any(Order.class));
 
         RuntimeException exception = assertThrows(RuntimeException.class,
                 () -> orderProducerService.submitOrder(order));
@@ -115,5 +155,318 @@ public class OrderProducerServiceImplTest {
         verify(orderRepository, times(1)).save(order);
     }
 
+    @Test
+    void testSubmitOrderAsync_CompletesWhenKafkaAcknowledges() {
+        when(warehouseRepository.findById(order.getProductName())).thenReturn(Optional.of(warehouseStock));
+        when(orderPublisher.publish(order.getOrderId(), order))
+                .thenReturn(CompletableFuture.completedFuture(order));
+
+        Order accepted = orderProducerService.submitOrderAsync(order).join();
+
+        assertSame(order, accepted);
+        assertEquals("PROCESSED", accepted.getStatus());
+        verify(orderRepository, times(1)).save(order);
+        verify(orderRepository, never()).findById(any());
+    }
+
+    @Test
+    void testSubmitOrderAsync_KafkaSendFailure() {
+        when(warehouseRepository.findById(order.getProductName())).thenReturn(Optional.of(warehouseStock));
+        when(orderPublisher.publish(order.getOrderId(), order))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("Kafka error")));
+
+        CompletionException exception = assertThrows(CompletionException.class,
+                () -> orderProducerService.submitOrderAsync(order).join());
+
+        assertEquals("Kafka error", exception.getCause().getMessage());
+        verify(orderRepository, times(1)).save(order);
+    }
+
+    @Test
+    void testSubmitOrderAsync_OutOfStockFailsBeforeSending() {
+        warehouseStock.setAvailableQuantity(0);
+        when(warehouseRepository.findById(order.getProductName())).thenReturn(Optional.of(warehouseStock));
+
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> orderProducerService.submitOrderAsync(order));
+
+        assertEquals("Out of Stock", exception.getMessage());
+        verify(orderPublisher, never()).publish(any(), any());
+    }
+
+    @Test
+    void testSubmitOrders_Batch_SingleStockLookupAndBulkInsert() {
+        Order second = Order.builder().orderId("1002").productName("ProductA").quantity(5).build();
+        Order unknown = Order.builder().orderId("1003").productName("ProductB").quantity(1).build();
+        order.setQuantity(6);
+
+        when(warehouseRepository.findAllById(anyIterable())).thenReturn(List.of(warehouseStock));
+        when(orderPublisher.publish(anyString(), any(Order.class)))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        List<OrderResponseDTO> results = orderProducerService.submitOrders(List.of(order, second, unknown));
+
+        // Second order only sees the 4 units left by the first one
+        assertEquals(3, results.size());
+        assertEquals("PROCESSED", results.get(0).getStatus());
+        assertEquals("Order submitted successfully and queued for processing", results.get(0).getMessage());
+        assertEquals("FAILED", results.get(1).getStatus());
+        assertEquals("Order Quantity exceeds available stock: 4", results.get(1).getMessage());
+        assertEquals("Product not found", results.get(2).getMessage());
+
+        verify(warehouseRepository, times(1)).findAllById(anyIterable());
+        verify(warehouseRepository, never()).findById(any());
+        verify(orderRepository, times(1)).insertAbsent(List.of(order, second));
+        verify(orderPublisher, times(1)).publish("1001", order);
+        verify(orderPublisher, never()).publish("1002", second);
+    }
+
+    @Test
+    void testSubmitOrders_Batch_SendFailureReportedPerOrder() {
+        when(warehouseRepository.findAllById(anyIterable())).thenReturn(List.of(warehouseStock));
+        when(orderPublisher.publish(anyString(), any(Order.class)))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("Broker unavailable")));
+
+        List<OrderResponseDTO> results = orderProducerService.submitOrders(List.of(order));
+
+        assertEquals("FAILED", results.get(0).getStatus());
+        assertEquals("Failed to queue order: Broker unavailable", results.get(0).getMessage());
+    }
+
+    @Test
+    void testSubmitOrders_Batch_RejectedPublishReportedAsFailed() {
+        when(warehouseRepository.findAllById(anyIterable())).thenReturn(List.of(warehouseStock));
+        when(orderPublisher.publish(anyString(), any(Order.class)))
+                .thenThrow(new RuntimeException("Too many orders waiting for Kafka acknowledgement, try again later"));
+
+        List<OrderResponseDTO> results = orderProducerService.submitOrders(List.of(order));
+
+        assertEquals("FAILED", results.get(0).getStatus());
+        assertEquals("Failed to queue order: Too many orders waiting for Kafka acknowledgement, try again later",
+                results.get(0).getMessage());
+    }
+
+    @Test
+    void testSubmitOrder_WithReservations_SkipsStockLookup() {
+        when(stockReservations.isEnabled()).thenReturn(true);
+        when(stockReservations.tryReserve("ProductA", order.getQuantity()))
+                .thenReturn(new StockReservations.Reservation(true, 10));
+
+        orderProducerService.submitOrder(order);
+
+        verify(warehouseRepository, never()).findById(any());
+        verify(orderRepository, times(1)).save(order);
+        verify(orderPublisher, times(1)).publish("1001", order);
+    }
+
+    @Test
+    void testSubmitOrder_WithReservations_ReleasedWhenSaveFails() {
+        when(stockReservations.isEnabled()).thenReturn(true);
+        when(stockReservations.tryReserve("ProductA", order.getQuantity()))
+                .thenReturn(new StockReservations.Reservation(true, 10));
+        when(orderRepository.save(order)).thenThrow(new RuntimeException("Mongo unavailable"));
+
+        assertThrows(RuntimeException.class, () -> orderProducerService.submitOrder(order));
+
+        verify(stockReservations, times(1)).release("ProductA", order.getQuantity());
+        verify(orderPublisher, never()).publish(any(), any());
+    }
+
+    @Test
+    void testSubmitOrder_WithReservations_SendFailureReleasedOnlyByPublisher() {
+        when(stockReservations.isEnabled()).thenReturn(true);
+        when(stockReservations.tryReserve("ProductA", order.getQuantity()))
+                .thenReturn(new StockReservations.Reservation(true, 10));
+        when(orderPublisher.publish(anyString(), any(Order.class)))
+                .thenThrow(new RuntimeException("Kafka error"));
+
+        assertThrows(RuntimeException.class, () -> orderProducerService.submitOrder(order));
+
+        // The publisher gives the reservation back, the service must not release it a second time
+        verify(stockReservations, never()).release(any(), anyInt());
+    }
+
+    @Test
+    void testSubmitOrder_WithReservations_NotEnoughReserved() {
+        when(stockReservations.isEnabled()).thenReturn(true);
+        when(stockReservations.tryReserve("ProductA", order.getQuantity()))
+                .thenReturn(new StockReservations.Reservation(false, 2));
+
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> orderProducerService.submitOrder(order));
+
+        assertEquals("Order Quantity exceeds available stock: 2", exception.getMessage());
+        assertEquals("FAILED", order.getStatus());
+        verify(orderPublisher, never()).publish(any(), any());
+        verify(stockReservations, never()).release(any(), anyInt());
+    }
+
+    @Test
+    void testSubmitOrder_DuplicateReturnsOriginalWithoutSending() {
+        Order original = new Order("1001", "ProductA", 4, "PROCESSED");
+        when(idempotencyGuard.findAccepted("1001")).thenReturn(Optional.of(original));
+
+        orderProducerService.submitOrder(order);
+
+        assertEquals("PROCESSED", order.getStatus());
+        assertEquals(4, order.getQuantity());
+        verify(warehouseRepository, never()).findById(any());
+        verify(orderRepository, never()).save(any());
+        verify(orderPublisher, never()).publish(any(), any());
+    }
+
+    @Test
+    void testSubmitOrder_NewIdInserted() {
+        when(idempotencyGuard.isDefinitelyNew("1001")).thenReturn(true);
+        when(warehouseRepository.findById(order.getProductName())).thenReturn(Optional.of(warehouseStock));
+        when(orderRepository.insertAbsent(List.of(order))).thenReturn(Set.of());
+
+        orderProducerService.submitOrder(order);
+
+        verify(orderRepository, never()).save(any());
+        verify(orderPublisher, times(1)).publish("1001", order);
+    }
+
+    @Test
+    void testSubmitOrderAsync_IdTakenByAcceptedOrderReturnsOriginal() {
+        Order original = new Order("1001", "ProductA", 4, "PROCESSED");
+        when(idempotencyGuard.isDefinitelyNew("1001")).thenReturn(true);
+        when(warehouseRepository.findById(order.getProductName())).thenReturn(Optional.of(warehouseStock));
+        when(orderRepository.insertAbsent(List.of(order))).thenReturn(Set.of("1001"));
+        when(orderRepository.findById("1001")).thenReturn(Optional.of(original));
+
+        Order accepted = orderProducerService.submitOrderAsync(order).join();
+
+        assertSame(original, accepted);
+        verify(orderRepository, never()).save(any());
+        verify(orderPublisher, never()).publish(any(), any());
+    }
+
+    @Test
+    void testSubmitOrder_IdTakenByFailedOrderIsRetried() {
+        when(idempotencyGuard.isDefinitelyNew("1001")).thenReturn(true);
+        when(warehouseRepository.findById(order.getProductName())).thenReturn(Optional.of(warehouseStock));
+        when(orderRepository.insertAbsent(List.of(order))).thenReturn(Set.of("1001"));
+        when(orderRepository.findById("1001")).thenReturn(Optional.of(new Order("1001", "ProductA", 50, "FAILED")));
+
+        orderProducerService.submitOrder(order);
+
+        verify(orderRepository, times(1)).save(order);
+        verify(orderPublisher, times(1)).publish("1001", order);
+    }
+
+    @Test
+    void testSubmitOrders_Batch_DuplicatesAreNotSentAgain() {
+        Order retried = Order.builder().orderId("1000").productName("ProductA").quantity(2).build();
+        Order repeated = Order.builder().orderId("1001").productName("ProductA").quantity(10).build();
+        order.setQuantity(3);
+
+        when(idempotencyGuard.findAccepted(anyCollection()))
+                .thenReturn(Map.of("1000", new Order("1000", "ProductA", 2, "PROCESSED")));
+        when(warehouseRepository.findAllById(anyIterable())).thenReturn(List.of(warehouseStock));
+        when(orderPublisher.publish(anyString(), any(Order.class)))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        List<OrderResponseDTO> results = orderProducerService.submitOrders(List.of(retried, order, repeated));
+
+        assertEquals("PROCESSED", results.get(0).getStatus());
+        assertEquals("PROCESSED", results.get(1).getStatus());
+        // Same id twice in one batch, the second shares the result of the first
+        assertSame(results.get(1), results.get(2));
+        verify(orderRepository, times(1)).insertAbsent(List.of(order));
+        verify(orderPublisher, times(1)).publish(anyString(), any(Order.class));
+    }
+
+    @Test
+    void testSubmitOrders_Batch_OrdersWithoutIdAreNotDuplicates() {
+        Order first = Order.builder().productName("ProductA").quantity(2).build();
+        Order second = Order.builder().orderId(" ").productName("ProductA").quantity(3).build();
+
+        when(warehouseRepository.findAllById(anyIterable())).thenReturn(List.of(warehouseStock));
+        when(orderPublisher.publish(any(), any(Order.class)))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        List<OrderResponseDTO> results = orderProducerService.submitOrders(List.of(first, second));
+
+        assertNotSame(results.get(0), results.get(1));
+        assertEquals(3, results.get(1).getQuantity());
+        verify(orderRepository, times(1)).insertAbsent(List.of(first, second));
+        verify(orderPublisher, times(2)).publish(any(), any(Order.class));
+    }
+
+    @Test
+    void testSubmitOrder_Outbox_SavedWithMarkerAndNotSent() {
+        orderProperties.getOutbox().setEnabled(true);
+        when(warehouseRepository.findById(order.getProductName())).thenReturn(Optional.of(warehouseStock));
+
+        orderProducerService.submitOrder(order);
+
+        assertEquals("PROCESSED", order.getStatus());
+        assertNotNull(order.getOutboxCreatedAt());
+        verify(orderRepository, times(1)).save(order);
+        verify(idempotencyGuard, times(1)).remember(order);
+        verify(orderPublisher, never()).publish(any(), any());
+    }
+
+    @Test
+    void testSubmitOrder_Outbox_FailedOrderIsNotMarked() {
+        orderProperties.getOutbox().setEnabled(true);
+        warehouseStock.setAvailableQuantity(5);
+        when(warehouseRepository.findById(order.getProductName())).thenReturn(Optional.of(warehouseStock));
+
+        assertThrows(RuntimeException.class, () -> orderProducerService.submitOrder(order));
+
+        assertEquals("FAILED", order.getStatus());
+        assertNull(order.getOutboxCreatedAt());
+        verify(orderRepository, times(1)).save(order);
+    }
+
+    @Test
+    void testSubmitOrders_Outbox_BulkInsertedWithMarkerAndNotSent() {
+        orderProperties.getOutbox().setEnabled(true);
+        when(warehouseRepository.findAllById(anyIterable())).thenReturn(List.of(warehouseStock));
+        when(orderRepository.insertAbsent(List.of(order))).thenReturn(Set.of());
+
+        List<OrderResponseDTO> results = orderProducerService.submitOrders(List.of(order));
+
+        assertEquals(1, results.size());
+        assertEquals("PROCESSED", results.get(0).getStatus());
+        assertNotNull(order.getOutboxCreatedAt());
+        verify(orderPublisher, never()).publish(any(), any());
+    }
+
+    @Test
+    void testSubmitOrder_IdIfAbsent_GeneratesOnlyMissingIds() {
+        orderProperties.getIdGeneration().setMode(OrderIdMode.IF_ABSENT);
+        order.setOrderId(null);
+        when(orderIdGenerator.nextId()).thenReturn("01KEXAMPLE000000");
+        when(warehouseRepository.findById(order.getProductName())).thenReturn(Optional.of(warehouseStock));
+
+        orderProducerService.submitOrder(order);
+
+        assertEquals("01KEXAMPLE000000", order.getOrderId());
+        verify(orderPublisher, times(1)).publish("01KEXAMPLE000000", order);
+    }
+
+    @Test
+    void testSubmitOrders_IdAlways_ReplacesClientIds() {
+        orderProperties.getIdGeneration().setMode(OrderIdMode.ALWAYS);
+        when(orderIdGenerator.nextId()).thenReturn("01KEXAMPLE000000");
+        when(warehouseRepository.findAllById(anyIterable())).thenReturn(List.of(warehouseStock));
+        when(orderPublisher.publish(any(), any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        List<OrderResponseDTO> results = orderProducerService.submitOrders(List.of(order));
+
+        assertEquals("01KEXAMPLE000000", results.get(0).getOrderId());
+    }
+
+    @Test
+    void testSubmitOrder_ClientIds_GeneratorUnused() {
+        when(warehouseRepository.findById(order.getProductName())).thenReturn(Optional.of(warehouseStock));
 
+        orderProducerService.submitOrder(order);
+
+        assertEquals("1001", order.getOrderId());
+        verifyNoInteractions(orderIdGenerator);
+    }
 }
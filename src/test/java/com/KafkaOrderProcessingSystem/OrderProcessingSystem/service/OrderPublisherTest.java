@@ -0,0 +1,140 @@
+package com.KafkaOrderProcessingSystem.OrderProcessingSystem.service;
+
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.config.KafkaProducerProperties;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity.Order;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.repository.OrderRepository;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils.OrderIdempotencyGuard;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils.OrderPublisher;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils.StockReservations;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.mockito.Mockito.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderPublisherTest {
+
+    @Mock
+    private KafkaTemplate<String, Order> kafkaTemplate;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private StockReservations stockReservations;
+
+    @Mock
+    private OrderIdempotencyGuard idempotencyGuard;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private OrderPublisher orderPublisher;
+
+    private Order order;
+
+    @BeforeEach
+    void setUp() {
+        KafkaProducerProperties producerProperties = new KafkaProducerProperties();
+        producerProperties.getPublishWindow().setMaxInFlight(2);
+        producerProperties.getPublishWindow().setAcquireTimeout(Duration.ofMillis(50));
+        meterRegistry = new SimpleMeterRegistry();
+        orderPublisher = new OrderPublisher(kafkaTemplate, orderRepository, stockReservations, idempotencyGuard,
+                producerProperties, meterRegistry);
+        order = new Order("1001", "Laptop", 2, "PROCESSED");
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        orderPublisher.shutdown();
+    }
+
+    @Test
+    void publish_AcknowledgedOrderIsRememberedAndTimed() {
+        when(kafkaTemplate.send("orders", "Laptop", order)).thenReturn(CompletableFuture.completedFuture(null));
+
+        assertSame(order, orderPublisher.publish("Laptop", order).join());
+
+        assertEquals(0, orderPublisher.inFlight());
+        verify(idempotencyGuard, times(1)).remember(order);
+        verify(orderRepository, never()).save(any());
+        assertEquals(1, meterRegistry.get("orders.publish.ack.latency").tag("result", "acked").timer().count());
+    }
+
+    @Test
+    void publish_FailedAckMarksOrderFailedAndReleasesReservation() {
+        when(stockReservations.isEnabled()).thenReturn(true);
+        when(kafkaTemplate.send("orders", "Laptop", order))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("Broker unavailable")));
+
+        CompletionException exception = assertThrows(CompletionException.class,
+                () -> orderPublisher.publish("Laptop", order).join());
+
+        assertEquals("Broker unavailable", exception.getCause().getMessage());
+        assertEquals("FAILED", order.getStatus());
+        verify(orderRepository, times(1)).save(order);
+        verify(stockReservations, times(1)).release("Laptop", 2);
+        verify(idempotencyGuard, never()).remember(any());
+        assertEquals(0, orderPublisher.inFlight());
+    }
+
+    @Test
+    void publish_FailedAckIsHandledOffTheProducerThread() {
+        AtomicReference<String> savingThread = new AtomicReference<>();
+        when(orderRepository.save(order)).thenAnswer(invocation -> {
+            savingThread.set(Thread.currentThread().getName());
+            return order;
+        });
+        when(kafkaTemplate.send("orders", "Laptop", order))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("Broker unavailable")));
+
+        assertThrows(CompletionException.class, () -> orderPublisher.publish("Laptop", order).join());
+
+        assertTrue(savingThread.get().startsWith("order-publish-callback-"));
+    }
+
+    @Test
+    void publish_FullWindowRejectsAfterTimeout() {
+        CompletableFuture<SendResult<String, Order>> pending = new CompletableFuture<>();
+        when(kafkaTemplate.send(eq("orders"), anyString(), any(Order.class))).thenReturn(pending);
+
+        orderPublisher.publish("Laptop", new Order("1", "Laptop", 1, "PROCESSED"));
+        orderPublisher.publish("Laptop", new Order("2", "Laptop", 1, "PROCESSED"));
+        assertEquals(2, orderPublisher.inFlight());
+        assertEquals(2.0, meterRegistry.get("orders.publish.in_flight").gauge().value());
+
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> orderPublisher.publish("Laptop", order));
+
+        assertTrue(exception.getMessage().startsWith("Too many orders waiting"));
+        assertEquals("FAILED", order.getStatus());
+        verify(kafkaTemplate, times(2)).send(eq("orders"), anyString(), any(Order.class));
+        assertEquals(1.0, meterRegistry.get("orders.publish.rejected").counter().count());
+
+        // Acknowledgements free the window again
+        pending.complete(null);
+        assertEquals(0, orderPublisher.inFlight());
+    }
+
+    @Test
+    void publish_SynchronousSendFailureFreesSlot() {
+        when(kafkaTemplate.send("orders", "Laptop", order)).thenThrow(new RuntimeException("Serialization failed"));
+
+        assertThrows(RuntimeException.class, () -> orderPublisher.publish("Laptop", order));
+
+        assertEquals(0, orderPublisher.inFlight());
+        verify(orderRepository, times(1)).save(order);
+    }
+}
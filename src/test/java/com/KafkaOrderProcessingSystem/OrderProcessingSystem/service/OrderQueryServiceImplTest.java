@@ -0,0 +1,56 @@
+package com.KafkaOrderProcessingSystem.OrderProcessingSystem.service;
+
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.dto.OrderCursorPageDTO;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity.Order;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.repository.OrderRepository;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.service.Impl.OrderQueryServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderQueryServiceImplTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @InjectMocks
+    private OrderQueryServiceImpl orderQueryService;
+
+    @Test
+    void findOrders_FullPage_NextCursorContinuesAfterLastOrder() {
+        when(orderRepository.findOrdersAfter("FAILED", null, null, 3)).thenReturn(List.of(
+                new Order("1001", "Laptop", 1, "FAILED"),
+                new Order("1002", "Mouse", 1, "FAILED"),
+                new Order("1003", "Laptop", 1, "FAILED")));
+
+        OrderCursorPageDTO first = orderQueryService.findOrders("FAILED", "", null, 2);
+
+        assertEquals(2, first.getSize());
+        assertNotNull(first.getNextCursor());
+        verify(orderRepository, never()).count();
+
+        doReturn(List.of(new Order("1003", "Laptop", 1, "FAILED")))
+                .when(orderRepository).findOrdersAfter("FAILED", null, "1002", 3);
+
+        OrderCursorPageDTO second = orderQueryService.findOrders("FAILED", null, first.getNextCursor(), 2);
+
+        assertEquals("1003", second.getContent().get(0).getOrderId());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    void findOrders_InvalidSizeOrCursor_ThrowsException() {
+        assertThrows(IllegalArgumentException.class, () -> orderQueryService.findOrders(null, null, null, 0));
+        assertThrows(IllegalArgumentException.class, () -> orderQueryService.findOrders(null, null, null, 1001));
+        assertThrows(RuntimeException.class, () -> orderQueryService.findOrders(null, null, "not a cursor", 10));
+        verifyNoInteractions(orderRepository);
+    }
+}
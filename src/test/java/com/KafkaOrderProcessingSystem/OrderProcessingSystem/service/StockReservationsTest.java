@@ -0,0 +1,114 @@
+package com.KafkaOrderProcessingSystem.OrderProcessingSystem.service;
+
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.config.OrderProperties;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity.WarehouseStock;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.repository.WarehouseRepository;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils.StockReservations;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.mockito.Mockito.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+class StockReservationsTest {
+
+    @Mock
+    private WarehouseRepository warehouseRepository;
+
+    @Spy
+    private OrderProperties orderProperties = new OrderProperties();
+
+    @InjectMocks
+    private StockReservations stockReservations;
+
+    @Test
+    void tryReserve_SeedsOnceAndTakesQuantity() {
+        when(warehouseRepository.findById("Laptop")).thenReturn(Optional.of(new WarehouseStock("Laptop", 10)));
+
+        assertTrue(stockReservations.tryReserve("Laptop", 6).reserved());
+
+        // Second order sees what the first one left, without reading Mongo again
+        StockReservations.Reservation second = stockReservations.tryReserve("Laptop", 6);
+        assertFalse(second.reserved());
+        assertEquals(4, second.available());
+        verify(warehouseRepository, times(1)).findById("Laptop");
+    }
+
+    @Test
+    void tryReserve_UnknownProductThrows() {
+        when(warehouseRepository.findById("Phone")).thenReturn(Optional.empty());
+
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> stockReservations.tryReserve("Phone", 1));
+
+        assertEquals("Product not found", exception.getMessage());
+        assertFalse(stockReservations.isTracked("Phone"));
+    }
+
+    @Test
+    void tryReserve_CounterSeededDuringRead_KeepsThatCounter() {
+        // Another thread seeds the counter while this one is reading Mongo outside the map
+        when(warehouseRepository.findById("Laptop")).thenAnswer(invocation -> {
+            stockReservations.seed(new WarehouseStock("Laptop", 3));
+            return Optional.of(new WarehouseStock("Laptop", 10));
+        });
+
+        StockReservations.Reservation reservation = stockReservations.tryReserve("Laptop", 2);
+
+        assertTrue(reservation.reserved());
+        assertEquals(3, reservation.available());
+        assertEquals(1, stockReservations.tryReserve("Laptop", 2).available());
+    }
+
+    @Test
+    void releaseAndAdjust_OnlyChangeTrackedCounters() {
+        when(warehouseRepository.findById("Laptop")).thenReturn(Optional.of(new WarehouseStock("Laptop", 5)));
+        stockReservations.tryReserve("Laptop", 5);
+
+        stockReservations.release("Laptop", 2);
+        stockReservations.adjust("Laptop", 3);
+        stockReservations.adjust("Phone", 3);
+
+        assertEquals(5, stockReservations.tryReserve("Laptop", 6).available());
+        assertFalse(stockReservations.isTracked("Phone"));
+    }
+
+    @Test
+    void tryReserve_ConcurrentOrdersNeverOversell() throws Exception {
+        when(warehouseRepository.findById("Laptop")).thenReturn(Optional.of(new WarehouseStock("Laptop", 100)));
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(executor.submit(() -> {
+                int reserved = 0;
+                for (int i = 0; i < 50; i++) {
+                    if (stockReservations.tryReserve("Laptop", 1).reserved()) {
+                        reserved++;
+                    }
+                }
+                return reserved;
+            }));
+        }
+        int total = 0;
+        for (Future<Integer> future : futures) {
+            total += future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(100, total);
+        assertFalse(stockReservations.tryReserve("Laptop", 1).reserved());
+    }
+}
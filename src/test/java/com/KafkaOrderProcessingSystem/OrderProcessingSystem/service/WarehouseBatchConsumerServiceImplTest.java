@@ -0,0 +1,57 @@
+package com.KafkaOrderProcessingSystem.OrderProcessingSystem.service;
+
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity.Order;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.service.Impl.WarehouseBatchConsumerServiceImpl;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils.WarehouseStockUpdate;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WarehouseBatchConsumerServiceImplTest {
+
+    @Mock
+    private WarehouseStockUpdate warehouseStockUpdate;
+
+    @InjectMocks
+    private WarehouseBatchConsumerServiceImpl warehouseBatchConsumerService;
+
+    @Test
+    void ConsumeOrders_ShouldProcessWholeBatchTest() {
+        List<Order> orders = List.of(
+                new Order("301", "Laptop", 2, "PROCESSED"),
+                new Order("302", "Laptop", 3, "PROCESSED"));
+
+        warehouseBatchConsumerService.consumeOrders(orders);
+
+        verify(warehouseStockUpdate, times(1)).processOrders(orders);
+        verify(warehouseStockUpdate, never()).processOrder(any());
+    }
+
+    @Test
+    void ConsumeOrder_ShouldProcessAsBatchOfOneTest() {
+        Order order = new Order("303", "Mouse", 1, "PROCESSED");
+
+        warehouseBatchConsumerService.consumeOrder(order);
+
+        verify(warehouseStockUpdate, times(1)).processOrders(List.of(order));
+    }
+
+    @Test
+    void ConsumeRecords_ShouldProcessWithOffsetsTest() {
+        List<ConsumerRecord<String, Order>> records = List.of(
+                new ConsumerRecord<>("orders", 0, 8, "Laptop", new Order("304", "Laptop", 2, "PROCESSED")));
+
+        warehouseBatchConsumerService.consumeRecords(records);
+
+        verify(warehouseStockUpdate, times(1)).processRecords(records);
+        verify(warehouseStockUpdate, never()).processOrders(any());
+    }
+}
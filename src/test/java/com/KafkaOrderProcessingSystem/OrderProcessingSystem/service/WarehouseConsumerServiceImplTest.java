@@ -3,12 +3,16 @@ package com.KafkaOrderProcessingSystem.OrderProcessingSystem.service;
 import com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity.Order;
 import com.KafkaOrderProcessingSystem.OrderProcessingSystem.service.Impl.WarehouseConsumerServiceImpl;
 import com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils.WarehouseStockUpdate;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.support.KafkaHeaders;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.nio.charset.StandardCharsets;
+
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -31,4 +35,27 @@ class WarehouseConsumerServiceImplTest {
 
         verify(warehouseStockUpdate, times(1)).processOrder(mockOrder);
     }
+
+    @Test
+    void ConsumeRecord_ShouldProcessWithOffsetTest() {
+        ConsumerRecord<String, Order> record = new ConsumerRecord<>("orders", 0, 3, "Laptop",
+                new Order("224", "Laptop", 1, "PROCESSED"));
+
+        warehouseConsumerService.consumeRecord(record);
+
+        verify(warehouseStockUpdate, times(1)).processRecord(record);
+        verify(warehouseStockUpdate, never()).processOrder(any());
+    }
+
+    @Test
+    void HandleDeadLetter_LeavesStockUntouchedTest() {
+        ConsumerRecord<String, Order> record = new ConsumerRecord<>("orders-dlt", 0, 0, "Tablet",
+                new Order("225", "Tablet", 1, "PROCESSED"));
+        record.headers().add(KafkaHeaders.DLT_EXCEPTION_MESSAGE,
+                "Product not found: Tablet".getBytes(StandardCharsets.UTF_8));
+
+        warehouseConsumerService.handleDeadLetter(record);
+
+        verifyNoInteractions(warehouseStockUpdate);
+    }
 }
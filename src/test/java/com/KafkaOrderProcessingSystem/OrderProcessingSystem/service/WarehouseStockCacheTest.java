@@ -0,0 +1,87 @@
+package com.KafkaOrderProcessingSystem.OrderProcessingSystem.service;
+
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity.WarehouseStock;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.repository.WarehouseRepositoryCustomImpl;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils.WarehouseStockCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class WarehouseStockCacheTest {
+
+    private CaffeineCacheManager cacheManager;
+
+    private WarehouseStockCache warehouseStockCache;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new CaffeineCacheManager(WarehouseStockCache.CACHE_NAME);
+        cacheManager.setCacheSpecification("maximumSize=100,recordStats");
+        warehouseStockCache = new WarehouseStockCache(cacheManager);
+    }
+
+    @Test
+    void putAndEvict_UpdateCachedStock() {
+        warehouseStockCache.put(new WarehouseStock("Laptop", 7));
+        warehouseStockCache.put(new WarehouseStock("Mouse", 3));
+
+        Cache cache = cacheManager.getCache(WarehouseStockCache.CACHE_NAME);
+        assertEquals(7, cache.get("Laptop", WarehouseStock.class).getAvailableQuantity());
+
+        warehouseStockCache.evict(List.of("Laptop", "Mouse"));
+
+        assertNull(cache.get("Laptop"));
+        assertNull(cache.get("Mouse"));
+    }
+
+    @Test
+    void adjustStock_ReplacesCachedStockWithMongoDocument() {
+        WarehouseStock cached = new WarehouseStock("Laptop", 10);
+        warehouseStockCache.put(cached);
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class),
+                any(FindAndModifyOptions.class), eq(WarehouseStock.class))).thenReturn(new WarehouseStock("Laptop", 15));
+
+        new WarehouseRepositoryCustomImpl(mongoTemplate, warehouseStockCache).adjustStock("Laptop", 5);
+
+        // Readers holding the cached instance never see a quantity Mongo did not return
+        assertEquals(10, cached.getAvailableQuantity());
+        assertEquals(15, warehouseStockCache.get("Laptop").getAvailableQuantity());
+    }
+
+    @Test
+    void adjustStock_FailedUpdateKeepsCachedStock() {
+        warehouseStockCache.put(new WarehouseStock("Laptop", 10));
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class),
+                any(FindAndModifyOptions.class), eq(WarehouseStock.class))).thenThrow(new RuntimeException("Mongo down"));
+
+        assertThrows(RuntimeException.class,
+                () -> new WarehouseRepositoryCustomImpl(mongoTemplate, warehouseStockCache).adjustStock("Laptop", 5));
+
+        assertEquals(10, warehouseStockCache.get("Laptop").getAvailableQuantity());
+    }
+
+    @Test
+    void putAndEvict_NoopWhenCachingIsDisabled() {
+        // CacheManager without the warehouseStock cache, as with spring.cache.type=none
+        WarehouseStockCache disabled = new WarehouseStockCache(mock(CacheManager.class));
+
+        assertDoesNotThrow(() -> disabled.put(new WarehouseStock("Laptop", 1)));
+        assertDoesNotThrow(() -> disabled.evict("Laptop"));
+    }
+}
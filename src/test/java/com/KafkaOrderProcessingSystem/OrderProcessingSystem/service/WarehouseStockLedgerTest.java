@@ -0,0 +1,196 @@
+package com.KafkaOrderProcessingSystem.OrderProcessingSystem.service;
+
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.config.KafkaConsumerProperties;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity.Order;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity.WarehouseStock;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.repository.WarehouseRepository;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.repository.WarehouseRepositoryCustom.OffsetDecrement;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils.WarehouseStockLedger;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WarehouseStockLedgerTest {
+
+    private static final TopicPartition PARTITION = new TopicPartition("orders", 0);
+
+    @Mock
+    private WarehouseRepository warehouseRepository;
+
+    @Mock
+    private Consumer<String, Order> consumer;
+
+    private WarehouseStockLedger ledger;
+
+    @BeforeEach
+    void setUp() {
+        KafkaConsumerProperties consumerProperties = new KafkaConsumerProperties();
+        consumerProperties.getLedger().setFlushInterval(Duration.ZERO);
+        ledger = new WarehouseStockLedger(warehouseRepository, consumerProperties);
+    }
+
+    private void stock(WarehouseStock stock) {
+        when(warehouseRepository.findAllById(List.of(stock.getProductName()))).thenReturn(List.of(stock));
+    }
+
+    private ConsumerRecord<String, Order> record(long offset, String productName, int quantity) {
+        return new ConsumerRecord<>("orders", 0, offset, productName,
+                new Order("O" + offset, productName, quantity, "PROCESSED"));
+    }
+
+    @Test
+    void Apply_ShouldReadStockOnceAndDecrementInMemoryTest() {
+        stock(new WarehouseStock("Laptop", 10));
+
+        assertTrue(ledger.apply(record(0, "Laptop", 4)));
+        assertTrue(ledger.apply(record(1, "Laptop", 6)));
+        // One read for the product while the stock covers the orders
+        verify(warehouseRepository, times(1)).findAllById(List.of("Laptop"));
+
+        // A shortage reads the stored quantity again, nothing was restocked
+        assertFalse(ledger.apply(record(2, "Laptop", 1)));
+
+        // No writes until the ledger is flushed
+        verify(warehouseRepository, never()).decrementStocksAtOffsets(anyList());
+        verify(warehouseRepository, never()).save(any());
+    }
+
+    @Test
+    void FlushIfDue_ShouldWriteDeltasWithOffsetsThenCommitTest() {
+        stock(new WarehouseStock("Laptop", 10));
+        when(consumer.assignment()).thenReturn(Set.of(PARTITION));
+
+        ledger.apply(record(5, "Laptop", 3));
+        ledger.apply(record(6, "Laptop", 2));
+        ledger.flushIfDue(consumer);
+
+        var inOrder = inOrder(warehouseRepository, consumer);
+        inOrder.verify(warehouseRepository).decrementStocksAtOffsets(
+                List.of(new OffsetDecrement("Laptop", 5, "orders-0", 5, 6)));
+        inOrder.verify(consumer).commitSync(Map.of(PARTITION, new OffsetAndMetadata(7)));
+    }
+
+    @Test
+    void Flush_ShouldKeepProductsLoadedTest() {
+        stock(new WarehouseStock("Laptop", 10));
+        when(consumer.assignment()).thenReturn(Set.of(PARTITION));
+        when(warehouseRepository.decrementStocksAtOffsets(anyList())).thenReturn(List.of());
+
+        assertTrue(ledger.apply(record(0, "Laptop", 4)));
+        ledger.flushIfDue(consumer);
+        assertTrue(ledger.apply(record(1, "Laptop", 6)));
+        ledger.flushIfDue(consumer);
+
+        // Loaded once, the second flush only carries what was applied since the first one
+        verify(warehouseRepository, times(1)).findAllById(List.of("Laptop"));
+        verify(warehouseRepository).decrementStocksAtOffsets(List.of(new OffsetDecrement("Laptop", 4, "orders-0", 0, 0)));
+        verify(warehouseRepository).decrementStocksAtOffsets(List.of(new OffsetDecrement("Laptop", 6, "orders-0", 1, 1)));
+    }
+
+    @Test
+    void Apply_Shortage_ShouldReadRestockedQuantityTest() {
+        when(warehouseRepository.findAllById(List.of("Laptop")))
+                .thenReturn(List.of(new WarehouseStock("Laptop", 5)), List.of(new WarehouseStock("Laptop", 25)));
+
+        assertTrue(ledger.apply(record(0, "Laptop", 4)));
+        // Only 1 left in memory, the stored quantity was restocked meanwhile, the pending 4 are not in it yet
+        assertTrue(ledger.apply(record(1, "Laptop", 20)));
+        assertFalse(ledger.apply(record(2, "Laptop", 2)));
+    }
+
+    @Test
+    void Flush_StockLoweredByAnotherWriter_ShouldReplayPendingOrdersTest() {
+        OffsetDecrement flushed = new OffsetDecrement("Laptop", 9, "orders-0", 0, 2);
+        when(warehouseRepository.findAllById(List.of("Laptop")))
+                .thenReturn(List.of(new WarehouseStock("Laptop", 10)), List.of(new WarehouseStock("Laptop", 6)));
+        when(consumer.assignment()).thenReturn(Set.of(PARTITION));
+        when(warehouseRepository.decrementStocksAtOffsets(List.of(flushed))).thenReturn(List.of(flushed));
+        when(warehouseRepository.decrementStockIfUnchanged(eq("Laptop"), eq(6), anyList()))
+                .thenReturn(Optional.of(new WarehouseStock("Laptop", 6)));
+
+        ledger.apply(record(0, "Laptop", 4));
+        ledger.apply(record(1, "Laptop", 3));
+        ledger.apply(record(2, "Laptop", 2));
+        ledger.flushIfDue(consumer);
+
+        // 6 left after an adjustment: the orders of 4 and 2 still fit, the one of 3 does not
+        var inOrder = inOrder(warehouseRepository, consumer);
+        inOrder.verify(warehouseRepository).decrementStockIfUnchanged("Laptop", 6,
+                List.of(new OffsetDecrement("Laptop", 6, "orders-0", 0, 2)));
+        inOrder.verify(consumer).commitSync(Map.of(PARTITION, new OffsetAndMetadata(3)));
+        assertFalse(ledger.apply(record(3, "Laptop", 1)));
+    }
+
+    @Test
+    void Apply_UnknownProduct_ShouldThrowExceptionTest() {
+        when(warehouseRepository.findAllById(List.of("Mouse"))).thenReturn(List.of());
+
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> ledger.apply(record(0, "Mouse", 1)));
+
+        assertEquals("Product not found: Mouse", exception.getMessage());
+
+        // Nothing was stored for the product, the next record reads it again
+        assertThrows(RuntimeException.class, () -> ledger.apply(record(1, "Mouse", 1)));
+        verify(warehouseRepository, times(2)).findAllById(List.of("Mouse"));
+    }
+
+    @Test
+    void PartitionsRevoked_ShouldFlushAndDropLedgerTest() {
+        stock(new WarehouseStock("Laptop", 10));
+
+        ledger.apply(record(0, "Laptop", 1));
+        ledger.onPartitionsRevokedBeforeCommit(consumer, List.of(PARTITION));
+
+        verify(warehouseRepository).decrementStocksAtOffsets(List.of(new OffsetDecrement("Laptop", 1, "orders-0", 0, 0)));
+        verify(consumer).commitSync(Map.of(PARTITION, new OffsetAndMetadata(1)));
+
+        // A later owner starts from Mongo again
+        ledger.apply(record(1, "Laptop", 1));
+        verify(warehouseRepository, times(2)).findAllById(List.of("Laptop"));
+    }
+
+    @Test
+    void PartitionsLost_ShouldDropWithoutFlushingTest() {
+        stock(new WarehouseStock("Laptop", 10));
+
+        ledger.apply(record(0, "Laptop", 1));
+        ledger.onPartitionsLost(consumer, List.of(PARTITION));
+
+        verify(warehouseRepository, never()).decrementStocksAtOffsets(anyList());
+        verify(consumer, never()).commitSync(anyMap());
+    }
+
+    @Test
+    void Apply_ShouldSkipRecordsFlushedBeforeTest() {
+        // Offsets 5 and 6 were written with the stock, the commit was lost in a crash
+        stock(WarehouseStock.builder()
+                .productName("Laptop").availableQuantity(5).appliedOffsets(Map.of("orders-0", 6L)).build());
+        when(consumer.assignment()).thenReturn(Set.of(PARTITION));
+
+        assertFalse(ledger.apply(record(5, "Laptop", 3)));
+        assertFalse(ledger.apply(record(6, "Laptop", 2)));
+        assertTrue(ledger.apply(record(7, "Laptop", 4)));
+        ledger.flushIfDue(consumer);
+
+        verify(warehouseRepository).decrementStocksAtOffsets(List.of(new OffsetDecrement("Laptop", 4, "orders-0", 7, 7)));
+        verify(consumer).commitSync(Map.of(PARTITION, new OffsetAndMetadata(8)));
+    }
+}
@@ -3,15 +3,20 @@ package com.KafkaOrderProcessingSystem.OrderProcessingSystem.service;
 import com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity.Order;
 import com.KafkaOrderProcessingSystem.OrderProcessingSystem.entity.WarehouseStock;
 import com.KafkaOrderProcessingSystem.OrderProcessingSystem.repository.WarehouseRepository;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.repository.WarehouseRepositoryCustom.OffsetDecrement;
+import com.KafkaOrderProcessingSystem.OrderProcessingSystem.repository.WarehouseRepositoryCustom.StockDecrement;
 import com.KafkaOrderProcessingSystem.OrderProcessingSystem.utils.WarehouseStockUpdate;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import java.util.NoSuchElementException;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -33,16 +38,33 @@ class WarehouseStockUpdateTest {
         order.setProductName("Laptop");
         order.setQuantity(2);
 
-        WarehouseStock existingStock = new WarehouseStock();
-        existingStock.setProductName("Laptop");
-        existingStock.setAvailableQuantity(10);
+        WarehouseStock updatedStock = new WarehouseStock();
+        updatedStock.setProductName("Laptop");
+        updatedStock.setAvailableQuantity(8);
 
-        when(warehouseRepository.findById("Laptop")).thenReturn(Optional.of(existingStock));
+        when(warehouseRepository.decrementStockIfAvailable("Laptop", 2)).thenReturn(Optional.of(updatedStock));
 
-        warehouseStockUpdate.processOrder(order);
+        assertTrue(warehouseStockUpdate.processOrder(order));
 
-        assertEquals(8, existingStock.getAvailableQuantity());
-        verify(warehouseRepository, times(1)).save(existingStock);
+        // Atomic update only, no read-modify-write
+        verify(warehouseRepository, never()).findById(any());
+        verify(warehouseRepository, never()).existsById(any());
+        verify(warehouseRepository, never()).save(any());
+    }
+
+    @Test
+    void ProcessOrder_InsufficientStock_ShouldLeaveStockUnchangedTest() {
+
+        Order order = new Order();
+        order.setProductName("Laptop");
+        order.setQuantity(20);
+
+        when(warehouseRepository.decrementStockIfAvailable("Laptop", 20)).thenReturn(Optional.empty());
+        when(warehouseRepository.existsById("Laptop")).thenReturn(true);
+
+        assertFalse(warehouseStockUpdate.processOrder(order));
+
+        verify(warehouseRepository, never()).save(any());
     }
 
     @Test
@@ -52,13 +74,183 @@ class WarehouseStockUpdateTest {
         order.setProductName("Mouse");
         order.setQuantity(1);
 
-        when(warehouseRepository.findById("Mouse")).thenReturn(Optional.empty());
+        when(warehouseRepository.decrementStockIfAvailable("Mouse", 1)).thenReturn(Optional.empty());
+        when(warehouseRepository.existsById("Mouse")).thenReturn(false);
 
-        assertThrows(
+        RuntimeException exception = assertThrows(
                 RuntimeException.class,
                 () -> warehouseStockUpdate.processOrder(order)
         );
 
+        assertEquals("Product not found: Mouse", exception.getMessage());
+        verify(warehouseRepository, never()).save(any());
+    }
+
+    @Test
+    void ProcessOrders_ShouldReadOnceAndWriteAllProductsInOneBulkTest() {
+
+        List<Order> orders = List.of(
+                new Order("1", "Laptop", 2, "PROCESSED"),
+                new Order("2", "Mouse", 1, "PROCESSED"),
+                new Order("3", "Laptop", 5, "PROCESSED"));
+
+        when(warehouseRepository.findAllById(Set.of("Laptop", "Mouse")))
+                .thenReturn(List.of(new WarehouseStock("Laptop", 10), new WarehouseStock("Mouse", 1)));
+
+        assertEquals(List.of(), warehouseStockUpdate.processOrders(orders));
+
+        // One read and one bulk write for the whole poll, no per-product or per-order round trips
+        verify(warehouseRepository, times(1)).decrementStocksIfUnchanged(List.of(
+                new StockDecrement("Laptop", 10, 7), new StockDecrement("Mouse", 1, 1)));
+        verify(warehouseRepository, never()).decrementStockInOrder(anyString(), anyList());
+        verify(warehouseRepository, never()).decrementStockIfAvailable(anyString(), anyInt());
         verify(warehouseRepository, never()).save(any());
     }
+
+    @Test
+    void ProcessOrders_ShouldApplyOrdersUpToAvailableStockTest() {
+
+        Order first = new Order("1", "Laptop", 3, "PROCESSED");
+        Order second = new Order("2", "Laptop", 3, "PROCESSED");
+        Order third = new Order("3", "Laptop", 2, "PROCESSED");
+
+        // 5 left: the first order fits, the second does not, the third fits in what remains
+        when(warehouseRepository.findAllById(Set.of("Laptop"))).thenReturn(List.of(new WarehouseStock("Laptop", 5)));
+
+        assertEquals(List.of(second), warehouseStockUpdate.processOrders(List.of(first, second, third)));
+        verify(warehouseRepository).decrementStocksIfUnchanged(List.of(new StockDecrement("Laptop", 5, 5)));
+    }
+
+    @Test
+    void ProcessOrders_StockChangedSinceRead_ShouldFallBackToOrderedUpdateTest() {
+
+        Order first = new Order("1", "Laptop", 3, "PROCESSED");
+        Order second = new Order("2", "Laptop", 3, "PROCESSED");
+        Order mouse = new Order("3", "Mouse", 1, "PROCESSED");
+
+        when(warehouseRepository.findAllById(Set.of("Laptop", "Mouse")))
+                .thenReturn(List.of(new WarehouseStock("Laptop", 10), new WarehouseStock("Mouse", 4)));
+        when(warehouseRepository.decrementStocksIfUnchanged(anyList())).thenReturn(Set.of("Laptop"));
+        // Only 4 left by the time of the fallback
+        when(warehouseRepository.decrementStockInOrder("Laptop", List.of(3, 3)))
+                .thenReturn(Optional.of(new WarehouseStock("Laptop", 4)));
+
+        assertEquals(List.of(second), warehouseStockUpdate.processOrders(List.of(first, mouse, second)));
+        verify(warehouseRepository, never()).decrementStockInOrder(eq("Mouse"), anyList());
+    }
+
+    @Test
+    void ProcessOrders_UnknownProductIsRejectedTest() {
+
+        Order order = new Order("1", "Mouse", 1, "PROCESSED");
+        when(warehouseRepository.findAllById(Set.of("Mouse"))).thenReturn(List.of());
+
+        assertEquals(List.of(order), warehouseStockUpdate.processOrders(List.of(order)));
+        verify(warehouseRepository).decrementStocksIfUnchanged(List.of());
+    }
+
+    @Test
+    void ProcessRecord_ShouldStoreOffsetWithDecrementTest() {
+
+        ConsumerRecord<String, Order> record = new ConsumerRecord<>("orders", 0, 12, "Laptop",
+                new Order("1", "Laptop", 2, "PROCESSED"));
+
+        when(warehouseRepository.decrementStockAtOffset("Laptop", 2, "orders-0", 12))
+                .thenReturn(Optional.of(new WarehouseStock("Laptop", 10)));
+
+        assertTrue(warehouseStockUpdate.processRecord(record));
+        verify(warehouseRepository, never()).existsById(any());
+    }
+
+    @Test
+    void ProcessRecord_InsufficientStockStillMatchesOnceTest() {
+
+        ConsumerRecord<String, Order> record = new ConsumerRecord<>("orders", 0, 12, "Laptop",
+                new Order("1", "Laptop", 20, "PROCESSED"));
+
+        // The previous document is returned, its quantity shows the stock was too low
+        when(warehouseRepository.decrementStockAtOffset("Laptop", 20, "orders-0", 12))
+                .thenReturn(Optional.of(new WarehouseStock("Laptop", 10)));
+
+        assertFalse(warehouseStockUpdate.processRecord(record));
+        verify(warehouseRepository, never()).existsById(any());
+    }
+
+    @Test
+    void ProcessRecord_ReplayedRecordIsSkippedTest() {
+
+        ConsumerRecord<String, Order> record = new ConsumerRecord<>("orders", 1, 7, "Laptop",
+                new Order("1", "Laptop", 2, "PROCESSED"));
+
+        when(warehouseRepository.decrementStockAtOffset("Laptop", 2, "orders-1", 7)).thenReturn(Optional.empty());
+        when(warehouseRepository.existsById("Laptop")).thenReturn(true);
+
+        assertFalse(warehouseStockUpdate.processRecord(record));
+    }
+
+    @Test
+    void ProcessRecords_ShouldDropAppliedRecordsAndCoalesceTest() {
+
+        List<ConsumerRecord<String, Order>> records = List.of(
+                new ConsumerRecord<>("orders", 0, 10, "Laptop", new Order("1", "Laptop", 2, "PROCESSED")),
+                new ConsumerRecord<>("orders", 0, 11, "Laptop", new Order("2", "Laptop", 3, "PROCESSED")),
+                new ConsumerRecord<>("orders", 0, 12, "Laptop", new Order("3", "Laptop", 4, "PROCESSED")),
+                new ConsumerRecord<>("orders", 1, 5, "Mouse", new Order("4", "Mouse", 1, "PROCESSED")));
+
+        // Offset 10 of partition 0 was applied before the redelivery
+        when(warehouseRepository.findAllById(anyIterable())).thenReturn(List.of(
+                WarehouseStock.builder().productName("Laptop").availableQuantity(20)
+                        .appliedOffsets(Map.of("orders-0", 10L)).build(),
+                new WarehouseStock("Mouse", 5)));
+        when(warehouseRepository.decrementStockIfUnchanged(anyString(), anyInt(), anyList()))
+                .thenAnswer(invocation -> Optional.of(new WarehouseStock(invocation.getArgument(0), invocation.getArgument(1))));
+
+        assertEquals(3, warehouseStockUpdate.processRecords(records));
+
+        verify(warehouseRepository).decrementStockIfUnchanged("Laptop", 20,
+                List.of(new OffsetDecrement("Laptop", 7, "orders-0", 11, 12)));
+        verify(warehouseRepository).decrementStockIfUnchanged("Mouse", 5,
+                List.of(new OffsetDecrement("Mouse", 1, "orders-1", 5, 5)));
+        verify(warehouseRepository, never()).decrementStockAtOffset(anyString(), anyInt(), anyString(), anyLong());
+    }
+
+    @Test
+    void ProcessRecords_ShouldOnlyStoreOffsetsOfDecrementedRecordsTest() {
+
+        // 5 left: offset 20 fits, offset 21 does not, offset 22 fits in what remains, offset 23 does not
+        List<ConsumerRecord<String, Order>> records = List.of(
+                new ConsumerRecord<>("orders", 0, 20, "Laptop", new Order("1", "Laptop", 3, "PROCESSED")),
+                new ConsumerRecord<>("orders", 0, 21, "Laptop", new Order("2", "Laptop", 3, "PROCESSED")),
+                new ConsumerRecord<>("orders", 0, 22, "Laptop", new Order("3", "Laptop", 2, "PROCESSED")),
+                new ConsumerRecord<>("orders", 0, 23, "Laptop", new Order("4", "Laptop", 1, "PROCESSED")));
+
+        when(warehouseRepository.findAllById(anyIterable())).thenReturn(List.of(new WarehouseStock("Laptop", 5)));
+        when(warehouseRepository.decrementStockIfUnchanged(anyString(), anyInt(), anyList()))
+                .thenReturn(Optional.of(new WarehouseStock("Laptop", 5)));
+
+        assertEquals(2, warehouseStockUpdate.processRecords(records));
+
+        // The rejected record at offset 23 stays above the stored offset
+        verify(warehouseRepository).decrementStockIfUnchanged("Laptop", 5,
+                List.of(new OffsetDecrement("Laptop", 5, "orders-0", 20, 22)));
+    }
+
+    @Test
+    void ProcessRecords_StockChangedSinceReadFallsBackToSingleRecordsTest() {
+
+        List<ConsumerRecord<String, Order>> records = List.of(
+                new ConsumerRecord<>("orders", 0, 30, "Laptop", new Order("1", "Laptop", 2, "PROCESSED")),
+                new ConsumerRecord<>("orders", 0, 31, "Laptop", new Order("2", "Laptop", 3, "PROCESSED")));
+
+        when(warehouseRepository.findAllById(anyIterable())).thenReturn(List.of(new WarehouseStock("Laptop", 10)));
+        when(warehouseRepository.decrementStockIfUnchanged(anyString(), anyInt(), anyList())).thenReturn(Optional.empty());
+        when(warehouseRepository.decrementStockAtOffset(eq("Laptop"), anyInt(), eq("orders-0"), anyLong()))
+                .thenReturn(Optional.of(new WarehouseStock("Laptop", 4)), Optional.of(new WarehouseStock("Laptop", 2)));
+
+        // Another writer left 4: only the first order still fits
+        assertEquals(1, warehouseStockUpdate.processRecords(records));
+
+        verify(warehouseRepository).decrementStockAtOffset("Laptop", 2, "orders-0", 30);
+        verify(warehouseRepository).decrementStockAtOffset("Laptop", 3, "orders-0", 31);
+    }
 }